@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.FeatureGenerator;
+import org.apache.sling.feature.analyser.TempDirArtifactProvider;
+import org.apache.sling.feature.analyser.task.AnalyserTask;
+import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.analyser.task.AnalyzerTaskProvider;
+import org.apache.sling.feature.builder.FeatureProvider;
+import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.Scanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks executing each built-in analyser task against a scanned generated feature.
+ * Scanning is done once per trial and not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnalyserTaskBenchmark {
+
+    @Param({
+        "apis-jar",
+        "bundle-packages",
+        "bundle-nativecode",
+        "bundle-unversioned-packages",
+        "bundle-connect",
+        "bundle-content",
+        "bundle-resources",
+        "configurations-basic",
+        "content-packages-installables",
+        "content-packages-validation",
+        "content-packages-dependencies",
+        "content-packages-paths",
+        "duplicate-symbolic-names",
+        "feature-id",
+        "repoinit-conflicts",
+        "repoinit",
+        "requirements-capabilities",
+        "serviceusermapping",
+        "check-unused-bundles"
+    })
+    public String taskId;
+
+    @Param({"10", "100", "1000"})
+    public int bundles;
+
+    @Param({"1000"})
+    public int contentPaths;
+
+    @Param({"100"})
+    public int repoinitStatements;
+
+    private TempDirArtifactProvider provider;
+
+    private AnalyserTask task;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.provider = new TempDirArtifactProvider();
+        final Feature feature = new FeatureGenerator()
+                .bundles(bundles)
+                .contentPackages(2)
+                .contentPathsPerPackage(contentPaths)
+                .repoinitStatements(repoinitStatements)
+                .generate(this.provider);
+        final AnalyserTask[] tasks = AnalyzerTaskProvider.getTasksByIds(Collections.singleton(taskId), null);
+        if (tasks.length != 1) {
+            throw new IllegalArgumentException("Unknown task " + taskId);
+        }
+        this.task = tasks[0];
+        this.context = new BenchmarkContext(feature, new Scanner(this.provider).scan(feature));
+        // required configuration
+        this.context.configuration.put(
+                CheckFeatureId.CONFIG_KEY_ACCEPTED_FEATURE_IDS, feature.getId().toMvnId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Benchmark
+    public int execute() throws Exception {
+        this.context.reports = 0;
+        this.task.execute(this.context);
+        return this.context.reports;
+    }
+
+    private static final class BenchmarkContext implements AnalyserTaskContext {
+
+        private final Feature feature;
+
+        private final FeatureDescriptor descriptor;
+
+        private final Map<String, String> configuration = new HashMap<>();
+
+        int reports;
+
+        BenchmarkContext(final Feature feature, final FeatureDescriptor descriptor) {
+            this.feature = feature;
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public Feature getFeature() {
+            return this.feature;
+        }
+
+        @Override
+        public FeatureDescriptor getFeatureDescriptor() {
+            return this.descriptor;
+        }
+
+        @Override
+        public FeatureProvider getFeatureProvider() {
+            return null;
+        }
+
+        @Override
+        public BundleDescriptor getFrameworkDescriptor() {
+            return null;
+        }
+
+        @Override
+        public Map<String, String> getConfiguration() {
+            return this.configuration;
+        }
+
+        @Override
+        public void reportWarning(final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportArtifactWarning(final ArtifactId artifactId, final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportArtifactError(final ArtifactId artifactId, final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportExtensionWarning(final String extension, final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportExtensionError(final String extension, final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportConfigurationWarning(final Configuration cfg, final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportConfigurationError(final Configuration cfg, final String message) {
+            reports++;
+        }
+
+        @Override
+        public void reportError(final String message) {
+            reports++;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for matching imported against exported package versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PackageInfoBenchmark {
+
+    @Param({"100", "10000"})
+    public int packages;
+
+    private List<PackageInfo> exports;
+
+    private List<PackageInfo> imports;
+
+    @Setup
+    public void setup() {
+        this.exports = new ArrayList<>();
+        this.imports = new ArrayList<>();
+        for (int i = 0; i < packages; i++) {
+            this.exports.add(new PackageInfo("org.apache.sling.p" + i, "1." + (i % 10) + ".0", false));
+            this.imports.add(new PackageInfo("org.apache.sling.p" + i, "[1." + (i % 5) + ",2)", i % 7 == 0));
+        }
+    }
+
+    @Benchmark
+    public int matchFreshInfos() {
+        // includes parsing the version and range for every package info
+        int matches = 0;
+        for (int i = 0; i < packages; i++) {
+            final PackageInfo exp = this.exports.get(i);
+            final PackageInfo imp = this.imports.get(i);
+            final PackageInfo e = new PackageInfo(exp.getName(), exp.getVersion(), false);
+            final PackageInfo m = new PackageInfo(imp.getName(), imp.getVersion(), imp.isOptional());
+            if (m.getPackageVersionRange().includes(e.getPackageVersion())) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int matchExistingInfos() {
+        int matches = 0;
+        for (int i = 0; i < packages; i++) {
+            if (this.imports.get(i).getPackageVersionRange().includes(this.exports.get(i).getPackageVersion())) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
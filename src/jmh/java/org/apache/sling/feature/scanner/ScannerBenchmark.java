@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.FeatureGenerator;
+import org.apache.sling.feature.analyser.TempDirArtifactProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for scanning bundles and features. A new scanner is used for each
+ * operation, so the scanner cache does not hide the scan cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScannerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int bundles;
+
+    @Param({"0", "1000"})
+    public int contentPaths;
+
+    private TempDirArtifactProvider provider;
+
+    private Feature feature;
+
+    private Artifact bundle;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.provider = new TempDirArtifactProvider();
+        this.feature = new FeatureGenerator()
+                .bundles(bundles)
+                .contentPackages(contentPaths > 0 ? 1 : 0)
+                .contentPathsPerPackage(contentPaths)
+                .generate(this.provider);
+        this.bundle = this.feature.getBundles().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Benchmark
+    public BundleDescriptor scanBundle() throws IOException {
+        return new Scanner(this.provider).scanBundle(this.bundle);
+    }
+
+    @Benchmark
+    public FeatureDescriptor scanFeature() throws IOException {
+        return new Scanner(this.provider).scan(this.feature);
+    }
+}
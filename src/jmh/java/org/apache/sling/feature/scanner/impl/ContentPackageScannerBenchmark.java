@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.analyser.FeatureGenerator;
+import org.apache.sling.feature.analyser.TempDirArtifactProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for scanning content packages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContentPackageScannerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int contentPaths;
+
+    @Param({"0", "2"})
+    public int nestingDepth;
+
+    private TempDirArtifactProvider provider;
+
+    private Artifact artifact;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.provider = new TempDirArtifactProvider();
+        this.artifact = new FeatureGenerator()
+                .bundles(0)
+                .contentPackages(1)
+                .contentPathsPerPackage(contentPaths)
+                .configurationsPerPackage(contentPaths / 10)
+                .nestingDepth(nestingDepth)
+                .generate(this.provider)
+                .getExtensions()
+                .get(0)
+                .getArtifacts()
+                .get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Benchmark
+    public Set<ContentPackageDescriptorImpl> scan() throws IOException {
+        return new ContentPackageScanner().scan(this.artifact, this.provider.provide(this.artifact.getId()));
+    }
+}
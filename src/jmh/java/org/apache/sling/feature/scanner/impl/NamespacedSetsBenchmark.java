@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.feature.scanner.PackageInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the namespaced sets backing the package and capability sets of descriptors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NamespacedSetsBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private List<PackageInfo> infos;
+
+    private NamespacedSets<PackageInfo> filled;
+
+    @Setup
+    public void setup() {
+        this.infos = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            this.infos.add(new PackageInfo("org.apache.sling.p" + (i % (size / 2 + 1)), "1." + i + ".0", false));
+        }
+        this.filled = new NamespacedSets<>(PackageInfo.class, PackageInfo::getName);
+        this.filled.asSet().addAll(this.infos);
+    }
+
+    @Benchmark
+    public NamespacedSets<PackageInfo> add() {
+        final NamespacedSets<PackageInfo> sets = new NamespacedSets<>(PackageInfo.class, PackageInfo::getName);
+        for (final PackageInfo info : this.infos) {
+            sets.add(info);
+        }
+        return sets;
+    }
+
+    @Benchmark
+    public int contains() {
+        int found = 0;
+        for (final PackageInfo info : this.infos) {
+            if (this.filled.asSet().contains(info)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int lookupByNamespace() {
+        int found = 0;
+        for (final PackageInfo info : this.infos) {
+            if (this.filled.getNamespacedSet(info.getName()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int iterate() {
+        int count = 0;
+        for (final PackageInfo info : this.filled.asSet()) {
+            count += info.getName().length();
+        }
+        return count;
+    }
+}
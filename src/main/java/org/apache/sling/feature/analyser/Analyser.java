@@ -18,6 +18,7 @@
  */
 package org.apache.sling.feature.analyser;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,6 +28,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.Configuration;
@@ -37,8 +45,10 @@ import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.builder.FeatureProvider;
 import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.ContentPackageDescriptor;
 import org.apache.sling.feature.scanner.FeatureDescriptor;
 import org.apache.sling.feature.scanner.Scanner;
+import org.apache.sling.feature.scanner.impl.FlightRecorderEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +62,11 @@ public class Analyser {
      */
     static final String ALL_TASKS_KEY = "all";
 
+    /**
+     * Configuration key for the time budget of a task in seconds.
+     */
+    static final String CFG_TIMEOUT = "timeout";
+
     private final AnalyserTask[] tasks;
 
     private final Scanner scanner;
@@ -62,6 +77,16 @@ public class Analyser {
 
     private boolean outputTaskDetails = true;
 
+    private AnalyserReportListener reportListener;
+
+    private int maxErrors;
+
+    private TaskReportStore reportStore;
+
+    private int featureCacheSize = CachingFeatureProvider.DEFAULT_MAX_SIZE;
+
+    private CachingFeatureProvider featureCache;
+
     /**
      * Create new analyser with a provided scanner and the tasks to run
      *
@@ -171,6 +196,57 @@ public class Analyser {
         this.outputTaskDetails = outputTaskDetails;
     }
 
+    /**
+     * Set a listener which receives each report as soon as it is recorded.
+     * @param listener The listener or {@code null} to remove the listener
+     * @since 1.7.0
+     */
+    public void setReportListener(final AnalyserReportListener listener) {
+        this.reportListener = listener;
+    }
+
+    /**
+     * Abort the analysis once the given number of errors is recorded. The task
+     * reporting the last error completes, all remaining tasks are skipped and
+     * the result is marked as {@link AnalyserResult#isAborted() aborted}.
+     * By default all tasks are executed.
+     * @param maxErrors The maximum number of errors, {@code 0} or less to execute all tasks
+     * @since 1.7.0
+     */
+    public void setMaxErrors(final int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Set a directory where the reports of tasks providing an
+     * {@link AnalyserTask#getInputFingerprint(AnalyserTaskContext) input fingerprint}
+     * are stored. If a task is executed again with the same fingerprint and
+     * configuration, the stored reports are replayed instead of executing the task.
+     * @param directory The directory or {@code null} to always execute all tasks
+     * @since 1.7.0
+     */
+    public void setReportStoreDirectory(final File directory) {
+        this.reportStore = directory == null ? null : new TaskReportStore(directory);
+    }
+
+    /**
+     * Set the maximum number of features cached for the feature provider passed to
+     * {@link #analyse(Feature, ArtifactId, FeatureProvider)}. The cache is shared by all
+     * tasks and by subsequent analyses using the same provider. Passing a
+     * {@link CachingFeatureProvider} to the analyse method uses that cache instead,
+     * which allows to share a cache across analysers.
+     * @param size The maximum number of features
+     * @throws IllegalArgumentException If {@code size} is less than {@code 1}
+     * @since 1.7.0
+     */
+    public synchronized void setFeatureCacheSize(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Cache size must be greater than zero : " + size);
+        }
+        this.featureCacheSize = size;
+        this.featureCache = null;
+    }
+
     /**
      * Analyse the feature
      *
@@ -207,8 +283,13 @@ public class Analyser {
             throws Exception {
         logger.info("Starting analyzing feature '{}'...", feature.getId());
 
-        final long start = System.currentTimeMillis();
+        final AnalyserMetrics metrics = new AnalyserMetrics();
+        final long start = System.nanoTime();
         final FeatureDescriptor featureDesc = scanner.scan(feature);
+        metrics.setScanNanos(System.nanoTime() - start);
+        metrics.setBundleCount(featureDesc.getBundleDescriptors().size());
+        metrics.setContentPackageCount(
+                featureDesc.getDescriptors(ContentPackageDescriptor.class).size());
         BundleDescriptor bd = null;
         ArtifactId framework = fwk;
         if (framework == null) {
@@ -219,10 +300,14 @@ public class Analyser {
             }
         }
         if (framework != null) {
+            final long startFramework = System.nanoTime();
             bd = scanner.scan(framework, feature.getFrameworkProperties());
+            metrics.setFrameworkScanNanos(System.nanoTime() - startFramework);
         }
         if (this.outputTaskDetails) {
-            logger.info("- Scanned feature in {}ms", System.currentTimeMillis() - start);
+            logger.info(
+                    "- Scanned feature in {}ms",
+                    TimeUnit.NANOSECONDS.toMillis(metrics.getScanNanos() + metrics.getFrameworkScanNanos()));
         }
         final BundleDescriptor fwkDesc = bd;
 
@@ -236,36 +321,111 @@ public class Analyser {
         final List<AnalyserResult.ExtensionReport> extensionErrors = new ArrayList<>();
         final List<AnalyserResult.ConfigurationReport> configurationErrors = new ArrayList<>();
 
+        // parsed once by the scanner
         AnalyserMetaDataExtension analyserMetaDataExtension =
-                AnalyserMetaDataExtension.getAnalyserMetaDataExtension(feature);
+                AnalyserMetaDataExtension.getAnalyserMetaDataExtension(featureDesc);
+
+        final FeatureProvider cachingFeatureProvider = getCachingFeatureProvider(featureProvider);
+        final AnalyserReportListener listener = this.reportListener;
+        boolean aborted = false;
+        final Map<Class<?>, Object> sharedValues = new ConcurrentHashMap<>();
 
         // execute analyser tasks
         for (final AnalyserTask task : tasks) {
+            if (this.maxErrors > 0
+                    && countReports(globalErrors, artifactErrors, extensionErrors, configurationErrors)
+                            >= this.maxErrors) {
+                logger.info("Aborting analysis after {} errors, skipping remaining tasks.", this.maxErrors);
+                aborted = true;
+                break;
+            }
             if (this.outputTaskDetails) {
                 logger.info("- Executing {} [{}]...", task.getName(), task.getId());
             }
-            final long startTask = System.currentTimeMillis();
+            final int reportsBefore = countReports(
+                    globalWarnings,
+                    artifactWarnings,
+                    extensionWarnings,
+                    configurationWarnings,
+                    globalErrors,
+                    artifactErrors,
+                    extensionErrors,
+                    configurationErrors);
+            final FlightRecorderEvents.Event event = FlightRecorderEvents.TASK_EXECUTE
+                    .begin()
+                    .setTaskId(task.getId())
+                    .setArtifactId(feature.getId());
+            final long startTask = System.nanoTime();
             final Map<String, String> taskConfiguration = getConfiguration(task.getId());
 
             final boolean strict = Boolean.valueOf(taskConfiguration.getOrDefault("strict", "false"));
+            final long timeout = getTimeout(task, taskConfiguration);
+            final long deadline = timeout > 0 ? startTask + timeout : 0;
+            final BooleanSupplier overBudget = () -> deadline != 0 && System.nanoTime() - deadline > 0;
+            final BooleanSupplier cancelled = () -> overBudget.getAsBoolean()
+                    || (maxErrors > 0
+                            && countReports(globalErrors, artifactErrors, extensionErrors, configurationErrors)
+                                    >= maxErrors);
+            // set once the task has seen the cancellation because of its time budget
+            final AtomicBoolean cancelledAtCheckpoint = new AtomicBoolean();
+            // set once a task exceeding its time budget is abandoned, its reports are dropped from then on
+            final AtomicBoolean detached = new AtomicBoolean();
+
+            final AnalyserTaskContext context = new AnalyserTaskContext() {
+                private <T extends AnalyserResult.Report<?>> void warning(final List<T> reports, final T report) {
+                    synchronized (detached) {
+                        if (detached.get()) {
+                            return;
+                        }
+                        reports.add(report);
+                        // under the lock, so a task which is abandoned meanwhile never calls the listener
+                        if (listener != null) {
+                            listener.warning(report);
+                        }
+                    }
+                }
 
-            task.execute(new AnalyserTaskContext() {
-                private final FeatureProvider cachingFeatureProvider = featureProvider != null
-                        ? new FeatureProvider() {
-                            private final ConcurrentHashMap<ArtifactId, Feature> cache = new ConcurrentHashMap<>();
-
-                            @Override
-                            public Feature provide(ArtifactId artifactId) {
-                                return cache.computeIfAbsent(artifactId, key -> featureProvider.provide(artifactId));
-                            }
+                private <T extends AnalyserResult.Report<?>> void error(final List<T> reports, final T report) {
+                    synchronized (detached) {
+                        if (detached.get()) {
+                            return;
+                        }
+                        reports.add(report);
+                        // under the lock, so a task which is abandoned meanwhile never calls the listener
+                        if (listener != null) {
+                            listener.error(report);
                         }
-                        : null;
+                    }
+                }
 
                 @Override
                 public Feature getFeature() {
                     return feature;
                 }
 
+                @Override
+                public boolean isCancelled() {
+                    if (detached.get()) {
+                        return true;
+                    }
+                    if (overBudget.getAsBoolean()) {
+                        cancelledAtCheckpoint.set(true);
+                        return true;
+                    }
+                    return cancelled.getAsBoolean();
+                }
+
+                @Override
+                public <T> T getSharedValue(final Class<T> type, final Supplier<T> factory) {
+                    final Object value = sharedValues.get(type);
+                    if (value != null) {
+                        return type.cast(value);
+                    }
+                    final T created = factory.get();
+                    final Object existing = sharedValues.putIfAbsent(type, created);
+                    return existing == null ? created : type.cast(existing);
+                }
+
                 @Override
                 public FeatureDescriptor getFeatureDescriptor() {
                     return featureDesc;
@@ -292,7 +452,7 @@ public class Analyser {
                         reportError(message);
                     }
                     if (analyserMetaDataExtension == null || analyserMetaDataExtension.reportWarning(feature.getId())) {
-                        globalWarnings.add(new AnalyserResult.GlobalReport(message, task.getId()));
+                        warning(globalWarnings, new AnalyserResult.GlobalReport(message, task.getId()));
                     }
                 }
 
@@ -304,7 +464,7 @@ public class Analyser {
                     if (analyserMetaDataExtension == null
                             || (analyserMetaDataExtension.reportWarning(artifactId)
                                     && analyserMetaDataExtension.reportWarning(feature.getId()))) {
-                        artifactWarnings.add(new AnalyserResult.ArtifactReport(artifactId, message, task.getId()));
+                        warning(artifactWarnings, new AnalyserResult.ArtifactReport(artifactId, message, task.getId()));
                     }
                 }
 
@@ -313,7 +473,7 @@ public class Analyser {
                     if (analyserMetaDataExtension == null
                             || (analyserMetaDataExtension.reportError(artifactId)
                                     && analyserMetaDataExtension.reportError(feature.getId()))) {
-                        artifactErrors.add(new AnalyserResult.ArtifactReport(artifactId, message, task.getId()));
+                        error(artifactErrors, new AnalyserResult.ArtifactReport(artifactId, message, task.getId()));
                     }
                 }
 
@@ -323,28 +483,30 @@ public class Analyser {
                         reportExtensionError(extension, message);
                     }
                     if (analyserMetaDataExtension == null || analyserMetaDataExtension.reportWarning(feature.getId())) {
-                        extensionWarnings.add(new AnalyserResult.ExtensionReport(extension, message, task.getId()));
+                        warning(
+                                extensionWarnings,
+                                new AnalyserResult.ExtensionReport(extension, message, task.getId()));
                     }
                 }
 
                 @Override
                 public void reportExtensionError(String extension, String message) {
                     if (analyserMetaDataExtension == null || analyserMetaDataExtension.reportError(feature.getId())) {
-                        extensionErrors.add(new AnalyserResult.ExtensionReport(extension, message, task.getId()));
+                        error(extensionErrors, new AnalyserResult.ExtensionReport(extension, message, task.getId()));
                     }
                 }
 
                 @Override
                 public void reportError(final String message) {
                     if (analyserMetaDataExtension == null || analyserMetaDataExtension.reportError(feature.getId())) {
-                        globalErrors.add(new AnalyserResult.GlobalReport(message, task.getId()));
+                        error(globalErrors, new AnalyserResult.GlobalReport(message, task.getId()));
                     }
                 }
 
                 @Override
                 public void reportConfigurationError(Configuration cfg, String message) {
                     if (analyserMetaDataExtension == null || analyserMetaDataExtension.reportWarning(feature.getId())) {
-                        configurationErrors.add(new AnalyserResult.ConfigurationReport(cfg, message, task.getId()));
+                        error(configurationErrors, new AnalyserResult.ConfigurationReport(cfg, message, task.getId()));
                     }
                 }
 
@@ -354,16 +516,53 @@ public class Analyser {
                         reportConfigurationError(cfg, message);
                     }
                     if (analyserMetaDataExtension == null || analyserMetaDataExtension.reportWarning(feature.getId())) {
-                        configurationWarnings.add(new AnalyserResult.ConfigurationReport(cfg, message, task.getId()));
+                        warning(
+                                configurationWarnings,
+                                new AnalyserResult.ConfigurationReport(cfg, message, task.getId()));
+                    }
+                }
+            };
+            final String budget = "Task exceeded its time budget of "
+                    .concat(String.valueOf(TimeUnit.NANOSECONDS.toMillis(timeout)))
+                    .concat("ms");
+            if (deadline == 0) {
+                this.execute(task, context, cancelled);
+            } else {
+                // grace period for tasks checking for cancellation before the task is stopped
+                final boolean returned = this.execute(task, context, cancelled, deadline + timeout / 10, () -> {
+                    // report and drop any later reports of the abandoned task
+                    synchronized (detached) {
+                        context.reportError(budget.concat(" and was stopped, results might be incomplete."));
+                        detached.set(true);
                     }
+                });
+                if (returned && cancelledAtCheckpoint.get()) {
+                    context.reportError(budget.concat(" and was cancelled, results might be incomplete."));
+                } else if (returned && overBudget.getAsBoolean()) {
+                    context.reportError(budget.concat("."));
                 }
-            });
+            }
+            final long taskNanos = System.nanoTime() - startTask;
+            event.commit();
+            metrics.addTask(
+                    task.getId(),
+                    taskNanos,
+                    countReports(
+                                    globalWarnings,
+                                    artifactWarnings,
+                                    extensionWarnings,
+                                    configurationWarnings,
+                                    globalErrors,
+                                    artifactErrors,
+                                    extensionErrors,
+                                    configurationErrors)
+                            - reportsBefore);
             if (this.outputTaskDetails) {
                 logger.info(
                         "- Executed {} [{}] in {}ms",
                         task.getName(),
                         task.getId(),
-                        System.currentTimeMillis() - startTask);
+                        TimeUnit.NANOSECONDS.toMillis(taskNanos));
             }
         }
 
@@ -373,13 +572,15 @@ public class Analyser {
                 + configurationWarnings.size();
         final int allErrors =
                 globalErrors.size() + artifactErrors.size() + extensionErrors.size() + configurationErrors.size();
+        metrics.setTotalNanos(System.nanoTime() - start);
         logger.info(
                 "Finished analyzing feature '{}' in {}ms : {} warnings, {} errors.",
                 feature.getId(),
-                System.currentTimeMillis() - start,
+                TimeUnit.NANOSECONDS.toMillis(metrics.getTotalNanos()),
                 allWarnings,
                 allErrors);
 
+        final boolean wasAborted = aborted;
         return new AnalyserResult() {
             @Override
             public List<GlobalReport> getGlobalWarnings() {
@@ -430,9 +631,114 @@ public class Analyser {
             public List<ConfigurationReport> getConfigurationWarnings() {
                 return configurationWarnings;
             }
+
+            @Override
+            public AnalyserMetrics getMetrics() {
+                return metrics;
+            }
+
+            @Override
+            public boolean isAborted() {
+                return wasAborted;
+            }
         };
     }
 
+    private long getTimeout(final AnalyserTask task, final Map<String, String> taskConfiguration) {
+        final String value = taskConfiguration.get(CFG_TIMEOUT);
+        if (value != null) {
+            try {
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+            } catch (final NumberFormatException e) {
+                logger.warn("Ignoring invalid timeout '{}' for task {}", value, task.getId());
+            }
+        }
+        return 0;
+    }
+
+    private synchronized FeatureProvider getCachingFeatureProvider(final FeatureProvider featureProvider) {
+        if (featureProvider == null || featureProvider instanceof CachingFeatureProvider) {
+            return featureProvider;
+        }
+        if (this.featureCache == null || this.featureCache.getDelegate() != featureProvider) {
+            this.featureCache = new CachingFeatureProvider(featureProvider, this.featureCacheSize);
+        }
+        return this.featureCache;
+    }
+
+    /**
+     * Execute a task on a worker thread and wait at most until the deadline. If the
+     * task does not return in time, its thread is interrupted and abandoned.
+     * @param deadline The deadline, including a grace period for tasks checking for cancellation
+     * @param onTimeout Called before the thread of a task not returning in time is interrupted
+     * @return {@code true} if the task returned before the deadline
+     */
+    private boolean execute(
+            final AnalyserTask task,
+            final AnalyserTaskContext context,
+            final BooleanSupplier cancelled,
+            final long deadline,
+            final Runnable onTimeout)
+            throws Exception {
+        final FutureTask<Void> future = new FutureTask<>(() -> {
+            this.execute(task, context, cancelled);
+            return null;
+        });
+        final Thread worker = new Thread(future, "analyser-task-".concat(task.getId()));
+        worker.setDaemon(true);
+        worker.start();
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (final TimeoutException e) {
+            onTimeout.run();
+            future.cancel(true);
+            return false;
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void execute(final AnalyserTask task, final AnalyserTaskContext context, final BooleanSupplier cancelled)
+            throws Exception {
+        final TaskReportStore store = this.reportStore;
+        final String fingerprint = store == null ? null : store.getFingerprint(task, context);
+        if (fingerprint == null) {
+            task.execute(context);
+            return;
+        }
+        final List<TaskReportStore.Entry> stored = store.load(task.getId(), fingerprint);
+        if (stored != null && TaskReportStore.replay(stored, context)) {
+            if (this.outputTaskDetails) {
+                logger.info("- Inputs of {} [{}] unchanged, replayed stored reports", task.getName(), task.getId());
+            }
+            return;
+        }
+        final List<TaskReportStore.Entry> entries = new ArrayList<>();
+        task.execute(TaskReportStore.record(context, entries));
+        // results of cancelled tasks might be incomplete
+        if (!cancelled.getAsBoolean()) {
+            store.store(task.getId(), fingerprint, entries);
+        }
+    }
+
+    private static int countReports(final List<?>... reports) {
+        int count = 0;
+        for (final List<?> list : reports) {
+            count += list.size();
+        }
+        return count;
+    }
+
     Map<String, String> getConfiguration(final String id) {
         final Map<String, String> result = new HashMap<>();
 
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timings and counters collected by the {@code Analyser} during a single run.
+ * All durations are in nanoseconds.
+ * @since 1.7.0
+ */
+public final class AnalyserMetrics {
+
+    private long scanNanos;
+
+    private long frameworkScanNanos;
+
+    private long totalNanos;
+
+    private int bundleCount;
+
+    private int contentPackageCount;
+
+    private final Map<String, Long> taskNanos = new LinkedHashMap<>();
+
+    private final Map<String, Integer> taskReports = new LinkedHashMap<>();
+
+    AnalyserMetrics() {
+        // created by the analyser
+    }
+
+    /**
+     * The time spent scanning the feature
+     * @return The duration in nanoseconds
+     */
+    public long getScanNanos() {
+        return scanNanos;
+    }
+
+    /**
+     * The time spent scanning the framework. This is {@code 0} if no framework was scanned.
+     * @return The duration in nanoseconds
+     */
+    public long getFrameworkScanNanos() {
+        return frameworkScanNanos;
+    }
+
+    /**
+     * The time spent for the whole analysis including scanning
+     * @return The duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * The number of scanned bundles
+     * @return The number of bundles
+     */
+    public int getBundleCount() {
+        return bundleCount;
+    }
+
+    /**
+     * The number of scanned content packages, including embedded packages
+     * @return The number of content packages
+     */
+    public int getContentPackageCount() {
+        return contentPackageCount;
+    }
+
+    /**
+     * The execution time of each task by task id, in execution order
+     * @return An unmodifiable map of task ids to the duration in nanoseconds
+     */
+    public Map<String, Long> getTaskNanos() {
+        return Collections.unmodifiableMap(taskNanos);
+    }
+
+    /**
+     * The number of warnings and errors recorded for each task by task id, in execution order
+     * @return An unmodifiable map of task ids to the number of reports
+     */
+    public Map<String, Integer> getTaskReportCounts() {
+        return Collections.unmodifiableMap(taskReports);
+    }
+
+    void setScanNanos(final long nanos) {
+        this.scanNanos = nanos;
+    }
+
+    void setFrameworkScanNanos(final long nanos) {
+        this.frameworkScanNanos = nanos;
+    }
+
+    void setTotalNanos(final long nanos) {
+        this.totalNanos = nanos;
+    }
+
+    void setBundleCount(final int count) {
+        this.bundleCount = count;
+    }
+
+    void setContentPackageCount(final int count) {
+        this.contentPackageCount = count;
+    }
+
+    void addTask(final String taskId, final long nanos, final int reports) {
+        this.taskNanos.merge(taskId, nanos, Long::sum);
+        this.taskReports.merge(taskId, reports, Integer::sum);
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyserMetrics [scanNanos=" + scanNanos + ", frameworkScanNanos=" + frameworkScanNanos
+                + ", totalNanos=" + totalNanos + ", bundleCount=" + bundleCount + ", contentPackageCount="
+                + contentPackageCount + ", taskNanos=" + taskNanos + ", taskReports=" + taskReports + "]";
+    }
+}
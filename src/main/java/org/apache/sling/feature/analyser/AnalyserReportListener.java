@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import org.osgi.annotation.versioning.ConsumerType;
+
+/**
+ * A listener receiving the reports of the {@code Analyser} as soon as an
+ * analyser task emits them, instead of waiting for the {@link AnalyserResult}.
+ * <p>
+ * Only reports which are recorded in the result are passed to the listener, reports
+ * suppressed by the analyser meta data are not. The listener is called from the
+ * thread executing the analysis or, for a task with a time budget, from the
+ * worker thread executing that task. Calls are never concurrent, the listener
+ * is called by one thread at a time and in the order the reports are recorded.
+ * @since 1.7.0
+ */
+@ConsumerType
+public interface AnalyserReportListener {
+
+    /**
+     * Called for each recorded warning
+     * @param report The warning
+     */
+    void warning(AnalyserResult.Report<?> report);
+
+    /**
+     * Called for each recorded error
+     * @param report The error
+     */
+    void error(AnalyserResult.Report<?> report);
+}
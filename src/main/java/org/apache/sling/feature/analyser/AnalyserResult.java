@@ -236,4 +236,19 @@ public interface AnalyserResult {
      * @since 1.2.0
      */
     BundleDescriptor getFrameworkDescriptor();
+
+    /**
+     * Return the timings and counters collected during the analysis
+     * @return The metrics
+     * @since 1.7.0
+     */
+    AnalyserMetrics getMetrics();
+
+    /**
+     * Whether the analysis was aborted before all tasks were executed
+     * because the maximum number of errors was reached.
+     * @return {@code true} if the analysis was aborted
+     * @since 1.7.0
+     */
+    boolean isAborted();
 }
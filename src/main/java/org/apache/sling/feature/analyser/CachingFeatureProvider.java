@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.builder.FeatureProvider;
+
+/**
+ * A {@link FeatureProvider} caching the features of a delegate provider.
+ * <p>
+ * The cache holds at most the configured number of features and evicts the
+ * least recently used feature first. Features which cannot be provided are not
+ * cached. An instance can be shared across analyser tasks, analyser runs and
+ * analysers; it is thread safe.
+ * @since 1.7.0
+ */
+public class CachingFeatureProvider implements FeatureProvider {
+
+    /** The default maximum number of cached features. */
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    private final FeatureProvider delegate;
+
+    private final Map<ArtifactId, Feature> cache;
+
+    /**
+     * Create a new provider with the default size
+     * @param delegate The provider to cache
+     */
+    public CachingFeatureProvider(final FeatureProvider delegate) {
+        this(delegate, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Create a new provider
+     * @param delegate The provider to cache
+     * @param maxSize The maximum number of cached features
+     * @throws IllegalArgumentException If {@code maxSize} is less than {@code 1}
+     */
+    public CachingFeatureProvider(final FeatureProvider delegate, final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be greater than zero : " + maxSize);
+        }
+        this.delegate = delegate;
+        this.cache = new LinkedHashMap<ArtifactId, Feature>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ArtifactId, Feature> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * The provider used to load features which are not cached
+     * @return The delegate
+     */
+    public FeatureProvider getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public Feature provide(final ArtifactId id) {
+        synchronized (this.cache) {
+            final Feature feature = this.cache.get(id);
+            if (feature != null) {
+                return feature;
+            }
+        }
+        // load outside the lock, concurrent loads of the same feature are harmless
+        final Feature feature = this.delegate.provide(id);
+        if (feature != null) {
+            synchronized (this.cache) {
+                this.cache.put(id, feature);
+            }
+        }
+        return feature;
+    }
+
+    /**
+     * Remove all cached features
+     */
+    public void clear() {
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.impl.JsonFiles;
+import org.apache.sling.feature.analyser.task.AnalyserTask;
+import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.analyser.task.TaskFingerprint;
+import org.apache.sling.feature.builder.FeatureProvider;
+import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local store for the reports of analyser tasks, keyed by the task id and the
+ * fingerprint of the task inputs. Each entry is a JSON file in a directory per task.
+ */
+class TaskReportStore {
+
+    private static final int VERSION = 1;
+
+    private static final String PROP_VERSION = "version";
+
+    private static final String PROP_REPORTS = "reports";
+
+    private static final String PROP_KIND = "kind";
+
+    private static final String PROP_KEY = "key";
+
+    private static final String PROP_MESSAGE = "message";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File directory;
+
+    /**
+     * The kind of a recorded report, reflecting the method called on the context
+     */
+    enum Kind {
+        WARNING,
+        ERROR,
+        ARTIFACT_WARNING,
+        ARTIFACT_ERROR,
+        EXTENSION_WARNING,
+        EXTENSION_ERROR,
+        CONFIGURATION_WARNING,
+        CONFIGURATION_ERROR
+    }
+
+    /**
+     * A recorded report
+     */
+    static final class Entry {
+        final Kind kind;
+        final String key;
+        final String message;
+
+        Entry(final Kind kind, final String key, final String message) {
+            this.kind = kind;
+            this.key = key;
+            this.message = message;
+        }
+    }
+
+    TaskReportStore(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Calculate the store key for a task
+     * @param task The task
+     * @param ctx The context
+     * @return The key or {@code null} if the task does not provide a fingerprint
+     */
+    String getFingerprint(final AnalyserTask task, final AnalyserTaskContext ctx) {
+        try {
+            final String fingerprint = task.getInputFingerprint(ctx);
+            if (fingerprint == null) {
+                return null;
+            }
+            return new TaskFingerprint()
+                    .add(String.valueOf(VERSION))
+                    .add(fingerprint)
+                    .add(ctx.getConfiguration())
+                    .build();
+        } catch (final Exception e) {
+            logger.debug("Unable to calculate fingerprint for task {} : {}", task.getId(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Load the reports for a task
+     * @param taskId The task id
+     * @param fingerprint The fingerprint
+     * @return The reports or {@code null} if there is no valid entry
+     */
+    List<Entry> load(final String taskId, final String fingerprint) {
+        final File file = getFile(taskId, fingerprint);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (final Reader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+                final JsonReader reader = Json.createReader(r)) {
+            final JsonObject obj = reader.readObject();
+            if (obj.getInt(PROP_VERSION, 0) != VERSION) {
+                return null;
+            }
+            final List<Entry> entries = new ArrayList<>();
+            for (final JsonValue value : obj.getJsonArray(PROP_REPORTS)) {
+                final JsonObject report = value.asJsonObject();
+                entries.add(new Entry(
+                        Kind.valueOf(report.getString(PROP_KIND)),
+                        report.getString(PROP_KEY, null),
+                        report.getString(PROP_MESSAGE)));
+            }
+            return entries;
+        } catch (final IOException | RuntimeException e) {
+            logger.warn("Ignoring invalid stored reports {} : {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the reports for a task. Failures are logged but do not fail the analysis.
+     * @param taskId The task id
+     * @param fingerprint The fingerprint
+     * @param entries The reports
+     */
+    void store(final String taskId, final String fingerprint, final List<Entry> entries) {
+        final File file = getFile(taskId, fingerprint);
+        final JsonArrayBuilder reports = Json.createArrayBuilder();
+        for (final Entry entry : entries) {
+            reports.add(Json.createObjectBuilder()
+                    .add(PROP_KIND, entry.kind.name())
+                    .add(PROP_KEY, entry.key == null ? JsonValue.NULL : Json.createValue(entry.key))
+                    .add(PROP_MESSAGE, entry.message));
+        }
+        try {
+            JsonFiles.write(
+                    file,
+                    Json.createObjectBuilder()
+                            .add(PROP_VERSION, VERSION)
+                            .add(PROP_REPORTS, reports)
+                            .build());
+        } catch (final IOException e) {
+            logger.warn("Unable to store reports for task {} : {}", taskId, e.getMessage());
+        }
+    }
+
+    private File getFile(final String taskId, final String fingerprint) {
+        return new File(new File(this.directory, taskId.replaceAll("[^A-Za-z0-9._-]", "_")), fingerprint + ".json");
+    }
+
+    /**
+     * Replay the reports through the context
+     * @param entries The reports
+     * @param ctx The context
+     * @return {@code false} if the reports cannot be replayed as a referenced configuration is missing
+     */
+    static boolean replay(final List<Entry> entries, final AnalyserTaskContext ctx) {
+        final Feature feature = ctx.getFeature();
+        for (final Entry entry : entries) {
+            if ((entry.kind == Kind.CONFIGURATION_WARNING || entry.kind == Kind.CONFIGURATION_ERROR)
+                    && feature.getConfigurations().getConfiguration(entry.key) == null) {
+                return false;
+            }
+        }
+        for (final Entry entry : entries) {
+            switch (entry.kind) {
+                case WARNING:
+                    ctx.reportWarning(entry.message);
+                    break;
+                case ERROR:
+                    ctx.reportError(entry.message);
+                    break;
+                case ARTIFACT_WARNING:
+                    ctx.reportArtifactWarning(ArtifactId.parse(entry.key), entry.message);
+                    break;
+                case ARTIFACT_ERROR:
+                    ctx.reportArtifactError(ArtifactId.parse(entry.key), entry.message);
+                    break;
+                case EXTENSION_WARNING:
+                    ctx.reportExtensionWarning(entry.key, entry.message);
+                    break;
+                case EXTENSION_ERROR:
+                    ctx.reportExtensionError(entry.key, entry.message);
+                    break;
+                case CONFIGURATION_WARNING:
+                    ctx.reportConfigurationWarning(
+                            feature.getConfigurations().getConfiguration(entry.key), entry.message);
+                    break;
+                case CONFIGURATION_ERROR:
+                    ctx.reportConfigurationError(
+                            feature.getConfigurations().getConfiguration(entry.key), entry.message);
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create a context recording all reports before passing them on to the delegate
+     * @param delegate The context
+     * @param entries The list to record to
+     * @return The recording context
+     */
+    static AnalyserTaskContext record(final AnalyserTaskContext delegate, final List<Entry> entries) {
+        return new AnalyserTaskContext() {
+
+            @Override
+            public Feature getFeature() {
+                return delegate.getFeature();
+            }
+
+            @Override
+            public FeatureDescriptor getFeatureDescriptor() {
+                return delegate.getFeatureDescriptor();
+            }
+
+            @Override
+            public FeatureProvider getFeatureProvider() {
+                return delegate.getFeatureProvider();
+            }
+
+            @Override
+            public BundleDescriptor getFrameworkDescriptor() {
+                return delegate.getFrameworkDescriptor();
+            }
+
+            @Override
+            public Map<String, String> getConfiguration() {
+                return delegate.getConfiguration();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return delegate.isCancelled();
+            }
+
+            @Override
+            public <T> T getSharedValue(final Class<T> type, final Supplier<T> factory) {
+                return delegate.getSharedValue(type, factory);
+            }
+
+            @Override
+            public void reportWarning(final String message) {
+                entries.add(new Entry(Kind.WARNING, null, message));
+                delegate.reportWarning(message);
+            }
+
+            @Override
+            public void reportArtifactWarning(final ArtifactId artifactId, final String message) {
+                entries.add(new Entry(Kind.ARTIFACT_WARNING, artifactId.toMvnId(), message));
+                delegate.reportArtifactWarning(artifactId, message);
+            }
+
+            @Override
+            public void reportArtifactError(final ArtifactId artifactId, final String message) {
+                entries.add(new Entry(Kind.ARTIFACT_ERROR, artifactId.toMvnId(), message));
+                delegate.reportArtifactError(artifactId, message);
+            }
+
+            @Override
+            public void reportExtensionWarning(final String extension, final String message) {
+                entries.add(new Entry(Kind.EXTENSION_WARNING, extension, message));
+                delegate.reportExtensionWarning(extension, message);
+            }
+
+            @Override
+            public void reportExtensionError(final String extension, final String message) {
+                entries.add(new Entry(Kind.EXTENSION_ERROR, extension, message));
+                delegate.reportExtensionError(extension, message);
+            }
+
+            @Override
+            public void reportError(final String message) {
+                entries.add(new Entry(Kind.ERROR, null, message));
+                delegate.reportError(message);
+            }
+
+            @Override
+            public void reportConfigurationWarning(final Configuration cfg, final String message) {
+                entries.add(new Entry(Kind.CONFIGURATION_WARNING, cfg.getPid(), message));
+                delegate.reportConfigurationWarning(cfg, message);
+            }
+
+            @Override
+            public void reportConfigurationError(final Configuration cfg, final String message) {
+                entries.add(new Entry(Kind.CONFIGURATION_ERROR, cfg.getPid(), message));
+                delegate.reportConfigurationError(cfg, message);
+            }
+        };
+    }
+}
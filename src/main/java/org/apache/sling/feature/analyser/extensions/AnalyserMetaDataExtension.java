@@ -18,6 +18,9 @@
  */
 package org.apache.sling.feature.analyser.extensions;
 
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -27,11 +30,15 @@ import jakarta.json.Json;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
 import jakarta.json.JsonValue;
+import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.builder.ArtifactProvider;
 import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.impl.CompactManifests;
 import org.osgi.framework.Constants;
 
 public class AnalyserMetaDataExtension {
@@ -42,6 +49,10 @@ public class AnalyserMetaDataExtension {
     static final String SYSTEM_BUNDLE_KEY = ArtifactId.fromMvnId(
                     "extra-metadata:" + Constants.SYSTEM_BUNDLE_SYMBOLICNAME + ":0")
             .toString();
+    // entry holding the compact encoding of bundle manifests, see CompactManifests
+    static final String COMPACT_MANIFESTS_KEY =
+            ArtifactId.fromMvnId("extra-metadata:compact-manifests:0").toString();
+    static final String DATA_KEY = "data";
     static final String MANIFEST_KEY = "manifest";
     static final String REPORT_KEY = "report";
     static final String WARNING_KEY = "warning";
@@ -50,6 +61,7 @@ public class AnalyserMetaDataExtension {
     static final String SCANNER_CACHE_KEY = "scannerCacheKey";
 
     private final Map<ArtifactId, Map<String, String>> manifests = new HashMap<>();
+    private Map<ArtifactId, CompactManifests.Entry> compactManifests = Collections.emptyMap();
     private final Map<ArtifactId, Boolean> reportWarnings = new HashMap<>();
     private final Map<ArtifactId, Boolean> reportErrors = new HashMap<>();
     private SystemBundle systemBundle;
@@ -59,6 +71,20 @@ public class AnalyserMetaDataExtension {
         return getAnalyserMetaDataExtension(ext);
     }
 
+    /**
+     * Get the extension of a scanned feature. The extension is parsed at most once
+     * and shared through the descriptor.
+     * @param descriptor The feature descriptor
+     * @return The extension or {@code null} if the feature has none
+     */
+    public static AnalyserMetaDataExtension getAnalyserMetaDataExtension(FeatureDescriptor descriptor) {
+        if (descriptor == null) {
+            return null;
+        }
+        return descriptor.getSharedValue(
+                AnalyserMetaDataExtension.class, () -> getAnalyserMetaDataExtension(descriptor.getFeature()));
+    }
+
     public static AnalyserMetaDataExtension getAnalyserMetaDataExtension(Extension ext) {
         if (ext == null) {
             return null;
@@ -91,6 +117,11 @@ public class AnalyserMetaDataExtension {
                 continue;
             }
 
+            if (entry.getKey().equals(COMPACT_MANIFESTS_KEY)) {
+                compactManifests = readCompactManifests(entry.getValue().asJsonObject());
+                continue;
+            }
+
             ArtifactId id = ArtifactId.fromMvnId(entry.getKey());
             JsonObject headers = entry.getValue().asJsonObject();
             if (headers.containsKey(MANIFEST_KEY)) {
@@ -113,12 +144,41 @@ public class AnalyserMetaDataExtension {
         }
     }
 
+    static Map<ArtifactId, CompactManifests.Entry> readCompactManifests(JsonObject json) {
+        try {
+            return CompactManifests.read(Base64.getDecoder().decode(json.getString(DATA_KEY)));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid entry " + COMPACT_MANIFESTS_KEY + " : " + e.getMessage(), e);
+        }
+    }
+
     public static boolean isAnalyserMetaDataExtension(Extension ext) {
         return ext != null && ext.getName().equals(EXTENSION_NAME) && ext.getType() == ExtensionType.JSON;
     }
 
     public Map<String, String> getManifest(final ArtifactId artifactId) {
-        return this.manifests.get(artifactId);
+        Map<String, String> manifest = this.manifests.get(artifactId);
+        if (manifest == null && this.compactManifests.containsKey(artifactId)) {
+            manifest = this.compactManifests.get(artifactId).getHeaders();
+        }
+        return manifest;
+    }
+
+    /**
+     * Create a bundle descriptor from the compact encoding of the manifest without parsing
+     * the manifest again. Manifests recorded as JSON take precedence.
+     * @param bundle The bundle
+     * @param provider The artifact provider
+     * @return The descriptor or {@code null} if there is no compact encoding for the bundle
+     * @throws IOException If the descriptor can't be created
+     */
+    public BundleDescriptor getBundleDescriptor(final Artifact bundle, final ArtifactProvider provider)
+            throws IOException {
+        CompactManifests.Entry entry = this.compactManifests.get(bundle.getId());
+        if (entry == null || this.manifests.containsKey(bundle.getId())) {
+            return null;
+        }
+        return entry.createDescriptor(bundle, provider);
     }
 
     public SystemBundle getSystemBundle() {
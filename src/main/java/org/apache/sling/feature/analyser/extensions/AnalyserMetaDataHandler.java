@@ -21,32 +21,44 @@ package org.apache.sling.feature.analyser.extensions;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
 
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
 import org.apache.commons.lang3.SystemUtils;
+import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.ExecutionEnvironmentExtension;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.ExtensionState;
 import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.impl.ArtifactExecutor;
 import org.apache.sling.feature.builder.HandlerContext;
 import org.apache.sling.feature.builder.PostProcessHandler;
 import org.apache.sling.feature.impl.felix.utils.resource.ResourceUtils;
 import org.apache.sling.feature.io.IOUtils;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.apache.sling.feature.scanner.PackageInfo;
+import org.apache.sling.feature.scanner.impl.BundleDescriptorImpl;
+import org.apache.sling.feature.scanner.impl.CompactManifests;
 import org.apache.sling.feature.scanner.impl.SystemBundleDescriptor;
 import org.apache.sling.feature.scanner.spi.FrameworkScanner;
 import org.osgi.framework.Constants;
@@ -58,6 +70,9 @@ import org.slf4j.LoggerFactory;
 public class AnalyserMetaDataHandler implements PostProcessHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AnalyserMetaDataHandler.class);
 
+    /** Handler configuration to store the manifests in the compact encoding */
+    static final String CFG_COMPACT_MANIFESTS = "compact-manifests";
+
     @Override
     public void postProcess(HandlerContext handlerContext, Feature feature, Extension extension) {
 
@@ -68,9 +83,17 @@ public class AnalyserMetaDataHandler implements PostProcessHandler {
             Map<String, JsonValue> directEntries = new HashMap<>();
             Map<String, JsonValue> wildcardEntries = new LinkedHashMap<>();
             JsonObject[] systemBundleHolder = new JsonObject[1];
+            Map<ArtifactId, CompactManifests.Entry> compactManifests = new HashMap<>();
             extensionJSONStructure.entrySet().forEach(entry -> {
                 if (entry.getKey().contains("*")) {
-                    wildcardEntries.put(entry.getKey(), entry.getValue());
+                    // entries without metadata never match
+                    if (entry.getValue() != JsonValue.NULL) {
+                        wildcardEntries.put(entry.getKey(), entry.getValue());
+                    }
+                } else if (entry.getKey().equals(AnalyserMetaDataExtension.COMPACT_MANIFESTS_KEY)) {
+                    // manifests of an already processed feature
+                    compactManifests.putAll(AnalyserMetaDataExtension.readCompactManifests(
+                            entry.getValue().asJsonObject()));
                 } else if (entry.getKey().equals(AnalyserMetaDataExtension.SYSTEM_BUNDLE_KEY)) {
                     systemBundleHolder[0] = entry.getValue().asJsonObject();
                 } else {
@@ -78,22 +101,71 @@ public class AnalyserMetaDataHandler implements PostProcessHandler {
                 }
             });
 
-            feature.getBundles().stream().forEach(bundle -> findFirst(directEntries, wildcardEntries, bundle.getId())
-                    .ifPresent(json -> {
-                        if (nullManifest(json)) {
-                            JsonObjectBuilder wrapper = Json.createObjectBuilder(json);
-                            wrapper.remove(AnalyserMetaDataExtension.MANIFEST_KEY);
-                            result.add(bundle.getId().toMvnId(), wrapper);
-                        } else if (noManifest(json)) {
-                            JsonObjectBuilder wrapper = Json.createObjectBuilder(json);
-                            getManifest(handlerContext, bundle.getId())
-                                    .ifPresent(
-                                            manifest -> wrapper.add(AnalyserMetaDataExtension.MANIFEST_KEY, manifest));
-                            result.add(bundle.getId().toMvnId(), wrapper);
-                        } else {
-                            result.add(bundle.getId().toMvnId(), json);
-                        }
-                    }));
+            // the wildcard keys are compiled once into a single pattern
+            WildcardMatcher<JsonValue> wildcardMatcher = new WildcardMatcher<>(wildcardEntries);
+
+            List<Artifact> bundles = new ArrayList<>();
+            List<JsonObject> bundleEntries = new ArrayList<>();
+            List<ArtifactId> manifestIds = new ArrayList<>();
+            for (Artifact bundle : feature.getBundles()) {
+                findFirst(directEntries, wildcardMatcher, bundle.getId()).ifPresent(json -> {
+                    bundles.add(bundle);
+                    bundleEntries.add(json);
+                    if (!nullManifest(json) && noManifest(json) && !compactManifests.containsKey(bundle.getId())) {
+                        manifestIds.add(bundle.getId());
+                    }
+                });
+            }
+
+            Map<String, String> configuration = handlerContext.getConfiguration() == null
+                    ? Collections.emptyMap()
+                    : handlerContext.getConfiguration();
+            CompactManifests.Writer compactWriter = Boolean.parseBoolean(configuration.get(CFG_COMPACT_MANIFESTS))
+                    ? new CompactManifests.Writer()
+                    : null;
+
+            // the manifests are extracted concurrently, the result is assembled in bundle order
+            Iterator<Optional<JsonObject>> manifests =
+                    getManifests(configuration, handlerContext, manifestIds).iterator();
+            for (int i = 0; i < bundles.size(); i++) {
+                Artifact bundle = bundles.get(i);
+                JsonObject json = bundleEntries.get(i);
+                CompactManifests.Entry compactEntry = compactManifests.get(bundle.getId());
+                JsonObjectBuilder wrapper = Json.createObjectBuilder(json);
+                wrapper.remove(AnalyserMetaDataExtension.MANIFEST_KEY);
+                JsonValue manifest;
+                if (nullManifest(json)) {
+                    manifest = null;
+                } else if (noManifest(json)) {
+                    manifest = compactEntry != null
+                            ? toJson(compactEntry.getHeaders())
+                            : manifests.next().orElse(null);
+                } else {
+                    manifest = json.get(AnalyserMetaDataExtension.MANIFEST_KEY);
+                    compactEntry = null;
+                }
+                if (manifest != null) {
+                    boolean compacted = compactWriter != null
+                            && manifest.getValueType() == JsonValue.ValueType.OBJECT
+                            && compact(compactWriter, handlerContext, bundle, compactEntry, manifest.asJsonObject());
+                    if (!compacted) {
+                        wrapper.add(AnalyserMetaDataExtension.MANIFEST_KEY, manifest);
+                    }
+                }
+                result.add(bundle.getId().toMvnId(), wrapper);
+            }
+            if (compactWriter != null && !compactWriter.isEmpty()) {
+                try {
+                    result.add(
+                            AnalyserMetaDataExtension.COMPACT_MANIFESTS_KEY,
+                            Json.createObjectBuilder()
+                                    .add(
+                                            AnalyserMetaDataExtension.DATA_KEY,
+                                            Base64.getEncoder().encodeToString(compactWriter.toByteArray())));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
 
             // only process if we have an empty system bundle definition
             if (JsonValue.EMPTY_JSON_OBJECT.equals(systemBundleHolder[0])) {
@@ -182,24 +254,73 @@ public class AnalyserMetaDataHandler implements PostProcessHandler {
     }
 
     private Optional<JsonObject> findFirst(
-            Map<String, JsonValue> directValues, Map<String, JsonValue> wildcardValues, ArtifactId bundle) {
-        JsonValue direct = directValues.get(bundle.toMvnId());
+            Map<String, JsonValue> directValues, WildcardMatcher<JsonValue> wildcardMatcher, ArtifactId bundle) {
+        String mvnId = bundle.toMvnId();
+        JsonValue direct = directValues.get(mvnId);
         if (direct != null && direct != JsonValue.NULL) {
             return Optional.of(direct.asJsonObject());
         }
-        return wildcardValues.entrySet().stream()
-                .filter(entry -> bundle.toMvnId().matches(entry.getKey()))
-                .filter(entry -> entry.getValue() != JsonValue.NULL)
-                .map(entry -> entry.getValue().asJsonObject())
-                .findFirst();
+        return Optional.ofNullable(wildcardMatcher.findFirst(mvnId)).map(JsonValue::asJsonObject);
+    }
+
+    private static JsonObject toJson(Map<String, String> headers) {
+        JsonObjectBuilder manifestBuilder = Json.createObjectBuilder();
+        headers.forEach(manifestBuilder::add);
+        return manifestBuilder.build();
+    }
+
+    private boolean compact(
+            CompactManifests.Writer writer,
+            HandlerContext handlerContext,
+            Artifact bundle,
+            CompactManifests.Entry compactEntry,
+            JsonObject manifest) {
+        try {
+            BundleDescriptor descriptor;
+            if (compactEntry != null) {
+                descriptor = compactEntry.createDescriptor(bundle, handlerContext.getArtifactProvider());
+            } else {
+                Manifest mf = new Manifest();
+                manifest.forEach(
+                        (name, value) -> mf.getMainAttributes().putValue(name, ((JsonString) value).getString()));
+                descriptor = new BundleDescriptorImpl(bundle, handlerContext.getArtifactProvider(), mf);
+            }
+            return writer.add(descriptor);
+        } catch (IOException | RuntimeException e) {
+            // not a bundle, keep the manifest as is
+            LOG.debug("Unable to compact manifest of {} : {}", bundle.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private List<Optional<JsonObject>> getManifests(
+            Map<String, String> configuration, HandlerContext handlerContext, List<ArtifactId> bundles) {
+        ArtifactExecutor executor = ArtifactExecutor.fromConfiguration(configuration, ArtifactExecutor.Mode.PARALLEL);
+        try {
+            return executor.execute(bundles, bundle -> getManifest(handlerContext, bundle));
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to extract manifests", ex);
+        }
     }
 
     private Optional<JsonObject> getManifest(HandlerContext handlerContext, ArtifactId bundle) {
         URL url = handlerContext.getArtifactProvider().provide(bundle);
-        try (JarFile jarFile = IOUtils.getJarFileFromURL(url, false, null)) {
-            return Optional.ofNullable(jarFile.getManifest()).map(manifest -> {
+        try {
+            // fast path: the manifest is usually one of the first entries of the jar
+            Manifest manifest;
+            try (JarInputStream jis = new JarInputStream(url.openStream())) {
+                manifest = jis.getManifest();
+            }
+            if (manifest == null) {
+                try (JarFile jarFile = IOUtils.getJarFileFromURL(url, false, null)) {
+                    manifest = jarFile.getManifest();
+                }
+            }
+            return Optional.ofNullable(manifest).map(mf -> {
                 JsonObjectBuilder manifestBuilder = Json.createObjectBuilder();
-                manifest.getMainAttributes().entrySet().stream()
+                mf.getMainAttributes().entrySet().stream()
                         .forEachOrdered(
                                 entry -> manifestBuilder.add(entry.getKey().toString(), (String) entry.getValue()));
 
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.extensions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches a value against a list of regular expressions and returns the entry of
+ * the first expression matching the whole value. The expressions are compiled
+ * once into a single alternation; each alternative is wrapped in a group, so the
+ * matching entry is the one with the first non {@code null} group.
+ * @param <T> The type of the entries
+ */
+final class WildcardMatcher<T> {
+
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(\\d|k<)");
+
+    private final List<T> values = new ArrayList<>();
+
+    /** The group of each alternative in the combined pattern */
+    private final int[] groups;
+
+    /** The combined pattern, {@code null} if the expressions can't be combined */
+    private final Pattern combined;
+
+    /** The single patterns, only used if they can't be combined */
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    /**
+     * Create a matcher
+     * @param entries The expressions and their entries, in the order they are matched
+     * @throws java.util.regex.PatternSyntaxException If an expression is invalid
+     */
+    WildcardMatcher(final Map<String, T> entries) {
+        this.groups = new int[entries.size()];
+        final StringBuilder sb = new StringBuilder();
+        boolean combine = true;
+        int group = 1;
+        for (final Map.Entry<String, T> entry : entries.entrySet()) {
+            final Pattern pattern = Pattern.compile(entry.getKey());
+            this.groups[this.values.size()] = group;
+            group += 1 + pattern.matcher("").groupCount();
+            this.values.add(entry.getValue());
+            this.patterns.add(pattern);
+            // back references would refer to the wrong group in the alternation
+            combine &= !BACK_REFERENCE.matcher(entry.getKey()).find();
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+            sb.append('(').append(entry.getKey()).append(')');
+        }
+        this.combined = combine && !this.values.isEmpty() ? Pattern.compile(sb.toString()) : null;
+        if (this.combined != null) {
+            this.patterns.clear();
+        }
+    }
+
+    /**
+     * Find the entry of the first expression matching the value
+     * @param value The value
+     * @return The entry or {@code null}
+     */
+    T findFirst(final String value) {
+        if (this.combined != null) {
+            final Matcher m = this.combined.matcher(value);
+            if (m.matches()) {
+                for (int i = 0; i < this.groups.length; i++) {
+                    if (m.start(this.groups[i]) != -1) {
+                        return this.values.get(i);
+                    }
+                }
+            }
+            return null;
+        }
+        for (int i = 0; i < this.patterns.size(); i++) {
+            if (this.patterns.get(i).matcher(value).matches()) {
+                return this.values.get(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.impl;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the per-artifact units of work of an analyser task.
+ * <p>
+ * Depending on the configuration the work is either executed sequentially on the
+ * calling thread, on a bounded pool of platform threads or with one virtual thread
+ * per artifact. Virtual threads require a Java 21 runtime, on older runtimes the
+ * bounded pool is used instead.
+ * <p>
+ * Results are always returned in the order of the input, therefore tasks should
+ * collect their findings in the unit of work and report them to the
+ * {@link org.apache.sling.feature.analyser.task.AnalyserTaskContext} afterwards
+ * from the calling thread.
+ */
+public final class ArtifactExecutor {
+
+    /** Configuration key for the execution mode, see {@link Mode}. */
+    public static final String CFG_EXECUTION_MODE = "execution-mode";
+
+    /** Configuration key for the maximum number of platform threads used in parallel mode. */
+    public static final String CFG_PARALLELISM = "parallelism";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactExecutor.class);
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    /**
+     * The execution mode
+     */
+    public enum Mode {
+        /** Execute all work on the calling thread. */
+        SEQUENTIAL,
+        /** Execute the work on a bounded pool of platform threads. */
+        PARALLEL,
+        /** Execute each unit of work on its own virtual thread (Java 21+). */
+        VIRTUAL
+    }
+
+    /**
+     * A unit of work for a single artifact.
+     * @param <T> The input type
+     * @param <R> The result type
+     */
+    @FunctionalInterface
+    public interface Work<T, R> {
+        R execute(T input) throws Exception;
+    }
+
+    private final Mode mode;
+
+    private final int parallelism;
+
+    /**
+     * Create a new executor
+     * @param mode The execution mode
+     * @param parallelism The maximum number of platform threads used in parallel mode
+     */
+    public ArtifactExecutor(final Mode mode, final int parallelism) {
+        if (mode == Mode.VIRTUAL && NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            LOGGER.debug("Virtual threads are not supported by this runtime, using parallel mode instead.");
+            this.mode = Mode.PARALLEL;
+        } else {
+            this.mode = mode;
+        }
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Create an executor based on the task configuration
+     * @param configuration The task configuration
+     * @param defaultMode The mode to use if none is configured
+     * @return The executor
+     * @throws IllegalArgumentException If the configuration is invalid
+     */
+    public static ArtifactExecutor fromConfiguration(final Map<String, String> configuration, final Mode defaultMode) {
+        final String modeValue = configuration.get(CFG_EXECUTION_MODE);
+        final Mode mode =
+                modeValue == null ? defaultMode : Mode.valueOf(modeValue.trim().toUpperCase(Locale.ROOT));
+
+        final String parallelismValue = configuration.get(CFG_PARALLELISM);
+        final int parallelism = parallelismValue == null
+                ? Runtime.getRuntime().availableProcessors()
+                : Integer.parseInt(parallelismValue.trim());
+
+        return new ArtifactExecutor(mode, parallelism);
+    }
+
+    /**
+     * Get the effective execution mode
+     * @return The mode
+     */
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Execute the work for all inputs.
+     * @param inputs The inputs
+     * @param work The work to execute for each input
+     * @param <T> The input type
+     * @param <R> The result type
+     * @return The results in the order of the inputs
+     * @throws Exception The first exception thrown by a unit of work
+     */
+    public <T, R> List<R> execute(final Collection<T> inputs, final Work<T, R> work) throws Exception {
+        final List<R> results = new ArrayList<>(inputs.size());
+        if (this.mode == Mode.SEQUENTIAL || inputs.size() < 2) {
+            for (final T input : inputs) {
+                results.add(work.execute(input));
+            }
+            return results;
+        }
+
+        final ExecutorService executor = createExecutorService(inputs.size());
+        try {
+            final List<Future<R>> futures = new ArrayList<>(inputs.size());
+            for (final T input : inputs) {
+                futures.add(executor.submit(() -> work.execute(input)));
+            }
+            for (final Future<R> future : futures) {
+                results.add(get(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static <R> R get(final Future<R> future) throws Exception {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private ExecutorService createExecutorService(final int size) throws Exception {
+        if (this.mode == Mode.VIRTUAL) {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.min(this.parallelism, size), r -> {
+            final Thread t = new Thread(r, "analyser-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonWriter;
+
+/**
+ * Helper for the JSON files of the on-disk stores.
+ */
+public final class JsonFiles {
+
+    private JsonFiles() {}
+
+    /**
+     * Write a JSON object to a file. The object is written to a temporary file
+     * in the same directory first which then replaces the file, so concurrent
+     * readers and writers never see a partially written file.
+     * @param file The file
+     * @param object The object
+     * @throws IOException If writing fails
+     */
+    public static void write(final File file, final JsonObject object) throws IOException {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        final File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            try (final Writer w = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8);
+                    final JsonWriter writer = Json.createWriter(w)) {
+                writer.writeObject(object);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+}
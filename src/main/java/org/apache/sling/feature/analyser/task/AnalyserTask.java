@@ -43,6 +43,25 @@ public interface AnalyserTask {
     }
     ;
 
+    /**
+     * Return a fingerprint of all inputs this task reads from the context. If the
+     * analyser is configured with a report store and a previous run with the same
+     * fingerprint and task configuration exists, the reports of that run are
+     * replayed instead of executing the task.
+     * <p>
+     * The fingerprint must cover everything the result depends on, for example the
+     * manifests of the bundles, the configurations or the extensions read by the task.
+     * The task configuration is always included by the analyser.
+     * @param ctx the task context, reports must not be emitted from this method.
+     * @return The fingerprint or {@code null} if the result of this task cannot be reused.
+     * @throws Exception when the fingerprint cannot be calculated.
+     * @see TaskFingerprint
+     * @since 1.4.0
+     */
+    default String getInputFingerprint(final AnalyserTaskContext ctx) throws Exception {
+        return null;
+    }
+
     /** Execute the task.
      * @param ctx the task context.
      * @throws Exception when the task throws an exception.
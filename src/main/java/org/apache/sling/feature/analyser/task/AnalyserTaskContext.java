@@ -19,6 +19,7 @@
 package org.apache.sling.feature.analyser.task;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.Configuration;
@@ -26,6 +27,7 @@ import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.builder.FeatureProvider;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.FeatureIndex;
 import org.osgi.annotation.versioning.ProviderType;
 
 @ProviderType
@@ -43,6 +45,17 @@ public interface AnalyserTaskContext {
      */
     FeatureDescriptor getFeatureDescriptor();
 
+    /**
+     * The index over the bundles of the feature descriptor, for example by start
+     * order, by imported package or by symbolic name. The index is created once
+     * per feature descriptor and shared by all tasks.
+     * @return The index
+     * @since 1.4.0
+     */
+    default FeatureIndex getFeatureIndex() {
+        return this.getFeatureDescriptor().getIndex();
+    }
+
     /**
      * Returns a Feature Provider, if present.
      *
@@ -126,4 +139,37 @@ public interface AnalyserTaskContext {
      * @param message The message.
      */
     void reportError(String message);
+
+    /**
+     * Whether the task should stop as soon as possible, because its time budget
+     * is exhausted or the analysis reached its maximum number of errors. Long
+     * running tasks should check this regularly and return early.
+     * <p>
+     * A task with a time budget is executed on a separate worker thread and
+     * is cancelled once the budget has elapsed since its start. If it does not
+     * return within a grace period of one tenth of the budget after that, its
+     * worker thread is interrupted and abandoned: the analysis continues with the
+     * next task and all reports the abandoned task emits later are dropped.
+     * Reports emitted before the task is abandoned are recorded, even if it is
+     * cancelled already.
+     * @return {@code true} if the task is cancelled
+     * @since 1.4.0
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Get a value shared by all tasks of the current analysis, for example a model
+     * derived from the feature which is expensive to create. The value is created
+     * with the factory on first access and kept until the analysis is finished.
+     * @param type The type of the value, used as the key
+     * @param factory The factory creating the value, must not return {@code null}
+     * @param <T> The type of the value
+     * @return The value
+     * @since 1.4.0
+     */
+    default <T> T getSharedValue(final Class<T> type, final Supplier<T> factory) {
+        return factory.get();
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Extension;
+
+/**
+ * Builder for the fingerprint of the inputs of an {@link AnalyserTask}.
+ * <p>
+ * Values are added in a well defined order and hashed with SHA-256. Two
+ * fingerprints are equal if the same values have been added in the same order.
+ * @see AnalyserTask#getInputFingerprint(AnalyserTaskContext)
+ * @since 1.4.0
+ */
+public final class TaskFingerprint {
+
+    private final MessageDigest digest;
+
+    /**
+     * Create a new fingerprint
+     */
+    public TaskFingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Add a string value
+     * @param value The value, might be {@code null}
+     * @return This fingerprint
+     */
+    public TaskFingerprint add(final String value) {
+        if (value == null) {
+            this.digest.update((byte) 0);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            this.digest.update((byte) 1);
+            this.digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+            this.digest.update((byte) ':');
+            this.digest.update(bytes);
+        }
+        return this;
+    }
+
+    /**
+     * Add all entries of a map, sorted by key
+     * @param values The map, might be {@code null}
+     * @return This fingerprint
+     */
+    public TaskFingerprint add(final Map<String, String> values) {
+        if (values == null) {
+            return this.add((String) null);
+        }
+        final Map<String, String> sorted = new TreeMap<>(values);
+        this.add(String.valueOf(sorted.size()));
+        for (final Map.Entry<String, String> entry : sorted.entrySet()) {
+            this.add(entry.getKey()).add(entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Add the main attributes of a manifest
+     * @param manifest The manifest, might be {@code null}
+     * @return This fingerprint
+     */
+    public TaskFingerprint add(final Manifest manifest) {
+        if (manifest == null) {
+            return this.add((String) null);
+        }
+        final Map<String, String> values = new TreeMap<>();
+        for (final Map.Entry<Object, Object> entry :
+                manifest.getMainAttributes().entrySet()) {
+            values.put(((Attributes.Name) entry.getKey()).toString(), String.valueOf(entry.getValue()));
+        }
+        return this.add(values);
+    }
+
+    /**
+     * Add an artifact: the id and the metadata
+     * @param artifact The artifact, might be {@code null}
+     * @return This fingerprint
+     */
+    public TaskFingerprint add(final Artifact artifact) {
+        if (artifact == null) {
+            return this.add((String) null);
+        }
+        return this.add(artifact.getId().toMvnId()).add(artifact.getMetadata());
+    }
+
+    /**
+     * Add an extension: the name, type, state and contents
+     * @param extension The extension, might be {@code null}
+     * @return This fingerprint
+     */
+    public TaskFingerprint add(final Extension extension) {
+        if (extension == null) {
+            return this.add((String) null);
+        }
+        this.add(extension.getName())
+                .add(extension.getType().name())
+                .add(extension.getState().name());
+        switch (extension.getType()) {
+            case TEXT:
+                this.add(extension.getText());
+                break;
+            case JSON:
+                this.add(extension.getJSON());
+                break;
+            case ARTIFACTS:
+                this.add(String.valueOf(extension.getArtifacts().size()));
+                for (final Artifact artifact : extension.getArtifacts()) {
+                    this.add(artifact);
+                }
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Add a configuration: the pid and the properties sorted by name
+     * @param cfg The configuration, might be {@code null}
+     * @return This fingerprint
+     */
+    public TaskFingerprint add(final Configuration cfg) {
+        if (cfg == null) {
+            return this.add((String) null);
+        }
+        this.add(cfg.getPid());
+        final Dictionary<String, Object> props = cfg.getProperties();
+        final List<String> keys = Collections.list(props.keys());
+        Collections.sort(keys);
+        this.add(String.valueOf(keys.size()));
+        for (final String key : keys) {
+            this.add(key);
+            final Object value = props.get(key);
+            if (value != null && value.getClass().isArray()) {
+                final int length = Array.getLength(value);
+                this.add(value.getClass()
+                        .getComponentType()
+                        .getName()
+                        .concat("[")
+                        .concat(String.valueOf(length)));
+                for (int i = 0; i < length; i++) {
+                    this.add(String.valueOf(Array.get(value, i)));
+                }
+            } else if (value instanceof Iterable) {
+                final List<String> values = new ArrayList<>();
+                for (final Object v : (Iterable<?>) value) {
+                    values.add(String.valueOf(v));
+                }
+                this.add(value.getClass().getName().concat(String.valueOf(values)));
+            } else {
+                this.add(value == null ? null : value.getClass().getName()).add(String.valueOf(value));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Build the fingerprint. The builder must not be used afterwards.
+     * @return The fingerprint as a hex string
+     */
+    public String build() {
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : this.digest.digest()) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+}
@@ -20,16 +20,19 @@ package org.apache.sling.feature.analyser.task.impl;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.apache.sling.feature.scanner.PackageInfo;
+import org.osgi.framework.Version;
+import org.osgi.framework.VersionRange;
 
 public class CheckBundleExportsImports implements AnalyserTask {
 
@@ -63,44 +66,35 @@ public class CheckBundleExportsImports implements AnalyserTask {
         // basic checks
         final Map<BundleDescriptor, Report> reports = new HashMap<>();
 
-        final SortedMap<Integer, List<BundleDescriptor>> bundlesMap = new TreeMap<>();
-        for (final BundleDescriptor bi : ctx.getFeatureDescriptor().getBundleDescriptors()) {
-            bundlesMap
-                    .computeIfAbsent(bi.getArtifact().getStartOrder(), key -> new ArrayList<>())
-                    .add(bi);
-        }
+        final SortedMap<Integer, List<BundleDescriptor>> bundlesMap =
+                ctx.getFeatureDescriptor().getIndex().getBundlesByStartOrder();
 
         // add all system packages
-        final List<BundleDescriptor> exportingBundles = new ArrayList<>();
+        final ExportIndex exports = new ExportIndex();
         if (ctx.getFrameworkDescriptor() != null) {
-            exportingBundles.add(ctx.getFrameworkDescriptor());
+            exports.add(ctx.getFrameworkDescriptor());
         }
 
         for (final Map.Entry<Integer, List<BundleDescriptor>> entry : bundlesMap.entrySet()) {
+            if (ctx.isCancelled()) {
+                break;
+            }
             // first add all exporting bundles
             for (final BundleDescriptor info : entry.getValue()) {
-                if (!info.getExportedPackages().isEmpty()) {
-                    exportingBundles.add(info);
-                }
+                exports.add(info);
             }
             // check importing bundles
             for (final BundleDescriptor info : entry.getValue()) {
                 for (final PackageInfo pck : info.getImportedPackages()) {
-                    final List<BundleDescriptor> candidates = getCandidates(exportingBundles, pck);
-                    if (candidates.isEmpty()) {
+                    if (!exports.isExported(pck.getName())) {
                         if (pck.isOptional()) {
                             getReport(reports, info).missingExportsForOptional.add(pck);
                         } else {
                             getReport(reports, info).missingExports.add(pck);
                         }
                     } else {
-                        final List<BundleDescriptor> matchingCandidates = new ArrayList<>();
-                        for (final BundleDescriptor i : candidates) {
-                            if (i.isExportingPackage(pck)) {
-                                matchingCandidates.add(i);
-                            }
-                        }
-                        if (matchingCandidates.isEmpty()) {
+                        final int matchingCandidates = exports.countMatchingBundles(pck);
+                        if (matchingCandidates == 0) {
                             if (pck.isOptional()) {
                                 getReport(reports, info)
                                         .missingExportsForOptional
@@ -110,7 +104,7 @@ public class CheckBundleExportsImports implements AnalyserTask {
                                         .missingExportsWithVersion
                                         .add(pck);
                             }
-                        } else if (matchingCandidates.size() > 1) {
+                        } else if (matchingCandidates > 1) {
                             getReport(reports, info).exportMatchingSeveral.add(pck);
                         }
                     }
@@ -174,13 +168,80 @@ public class CheckBundleExportsImports implements AnalyserTask {
         return sb.toString();
     }
 
-    private List<BundleDescriptor> getCandidates(final List<BundleDescriptor> exportingBundles, final PackageInfo pck) {
-        final List<BundleDescriptor> candidates = new ArrayList<>();
-        for (final BundleDescriptor info : exportingBundles) {
-            if (info.isExportingPackage(pck.getName())) {
-                candidates.add(info);
+    /**
+     * Index of the packages exported by the bundles of the already processed
+     * start levels. For each package name the exports are kept sorted by version,
+     * so an import is matched by a binary search for the lower bound of its
+     * version range.
+     */
+    private static final class ExportIndex {
+
+        private static final Comparator<Export> BY_VERSION = Comparator.comparing(e -> e.version);
+
+        private final Map<String, List<Export>> exports = new HashMap<>();
+
+        private static final class Export {
+            final Version version;
+            final BundleDescriptor bundle;
+
+            Export(final Version version, final BundleDescriptor bundle) {
+                this.version = version;
+                this.bundle = bundle;
+            }
+        }
+
+        void add(final BundleDescriptor bundle) {
+            for (final PackageInfo info : bundle.getExportedPackages()) {
+                final Version version = info.getVersion() == null ? Version.emptyVersion : info.getPackageVersion();
+                final Export export = new Export(version, bundle);
+                final List<Export> list = this.exports.computeIfAbsent(info.getName(), key -> new ArrayList<>());
+                final int pos = Collections.binarySearch(list, export, BY_VERSION);
+                list.add(pos < 0 ? -pos - 1 : pos, export);
+            }
+        }
+
+        boolean isExported(final String packageName) {
+            return this.exports.containsKey(packageName);
+        }
+
+        /**
+         * Count the bundles exporting the package in a version matching the import
+         * @param info The import
+         * @return The number of bundles, at most {@code 2}
+         */
+        int countMatchingBundles(final PackageInfo info) {
+            final List<Export> list = this.exports.get(info.getName());
+            if (list == null) {
+                return 0;
+            }
+            final VersionRange range = info.getVersion() == null ? null : info.getPackageVersionRange();
+            int start = 0;
+            if (range != null) {
+                final int pos = Collections.binarySearch(list, new Export(range.getLeft(), null), BY_VERSION);
+                start = pos < 0 ? -pos - 1 : pos;
+                // move to the first export with that version
+                while (start > 0 && list.get(start - 1).version.equals(range.getLeft())) {
+                    start--;
+                }
+            }
+            BundleDescriptor first = null;
+            for (int i = start; i < list.size(); i++) {
+                final Export export = list.get(i);
+                if (range != null) {
+                    if (range.getRight() != null && export.version.compareTo(range.getRight()) > 0) {
+                        break;
+                    }
+                    if (!range.includes(export.version)) {
+                        continue;
+                    }
+                }
+                if (first == null) {
+                    first = export.bundle;
+                } else if (first != export.bundle) {
+                    return 2;
+                }
             }
+            return first == null ? 0 : 1;
         }
-        return candidates;
     }
 }
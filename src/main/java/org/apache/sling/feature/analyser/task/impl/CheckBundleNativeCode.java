@@ -22,6 +22,7 @@ import java.util.jar.Manifest;
 
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.analyser.task.TaskFingerprint;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.osgi.framework.Constants;
 
@@ -37,6 +38,17 @@ public class CheckBundleNativeCode implements AnalyserTask {
         return "bundle-nativecode";
     }
 
+    @Override
+    public String getInputFingerprint(final AnalyserTaskContext ctx) {
+        final TaskFingerprint fingerprint = new TaskFingerprint();
+        for (final BundleDescriptor descriptor : ctx.getFeatureDescriptor().getBundleDescriptors()) {
+            fingerprint
+                    .add(descriptor.getArtifact().getId().toMvnId())
+                    .add(descriptor.getManifest().getMainAttributes().getValue(Constants.BUNDLE_NATIVECODE));
+        }
+        return fingerprint.build();
+    }
+
     @Override
     public void execute(final AnalyserTaskContext ctx) {
         for (final BundleDescriptor descriptor : ctx.getFeatureDescriptor().getBundleDescriptors()) {
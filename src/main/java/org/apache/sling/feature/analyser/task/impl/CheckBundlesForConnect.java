@@ -25,12 +25,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
 
 import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.analyser.impl.ArtifactExecutor;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.scanner.BundleContentIndex;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.osgi.framework.Constants;
 
@@ -47,64 +48,37 @@ public class CheckBundlesForConnect implements AnalyserTask {
     }
 
     @Override
-    public void execute(final AnalyserTaskContext ctx) {
-        final Map<String, List<Artifact>> packageMap = new HashMap<>();
+    public void execute(final AnalyserTaskContext ctx) throws Exception {
+        final List<BundleDescriptor> bundles = new ArrayList<>();
         for (final BundleDescriptor bd : ctx.getFeatureDescriptor().getBundleDescriptors()) {
             if (bd.getManifest() != null) {
-                final String cp = bd.getManifest().getMainAttributes().getValue(Constants.BUNDLE_CLASSPATH);
-                String[] jars = null;
-                if (cp != null) {
-                    jars = cp.split(",");
-                    ctx.reportArtifactWarning(bd.getArtifact().getId(), "Found bundle classpath in : " + cp);
-                }
+                bundles.add(bd);
+            }
+        }
 
-                final Set<String> packages = new HashSet<>();
-                try (final JarInputStream jis =
-                        new JarInputStream(bd.getArtifactFile().openStream())) {
-                    JarEntry entry;
-                    while ((entry = jis.getNextJarEntry()) != null) {
-                        if (entry.getName().endsWith(".class")) {
-                            final int lastPos = entry.getName().lastIndexOf('/');
-                            if (lastPos == -1) {
-                                ctx.reportArtifactError(
-                                        bd.getArtifact().getId(), "Bundle contains classes in the default package");
-                            } else {
-                                packages.add(entry.getName().substring(0, lastPos));
-                            }
-                        } else if (!entry.isDirectory() && jars != null) {
-                            for (final String jar : jars) {
-                                if (jar.equals(entry.getName())) {
-                                    final JarInputStream is = new JarInputStream(jis);
-                                    JarEntry inner;
-                                    while ((inner = is.getNextJarEntry()) != null) {
-                                        if (inner.getName().endsWith(".class")) {
-                                            final int lastPos = inner.getName().lastIndexOf('/');
-                                            if (lastPos == -1) {
-                                                ctx.reportArtifactError(
-                                                        bd.getArtifact().getId(),
-                                                        "Bundle contains (embedded) classes in the default package");
-                                            } else {
-                                                packages.add(inner.getName().substring(0, lastPos));
-                                            }
-                                        }
-                                        is.closeEntry();
-                                    }
-                                }
-                            }
-                        }
-                        jis.closeEntry();
-                    }
-                } catch (final IOException ioe) {
-                    ctx.reportArtifactError(bd.getArtifact().getId(), "Unable to scan bundle: " + ioe.getMessage());
-                }
-                for (final String p : packages) {
-                    List<Artifact> list = packageMap.get(p);
-                    if (list == null) {
-                        list = new ArrayList<>();
-                        packageMap.put(p, list);
-                    }
-                    list.add(bd.getArtifact());
+        final ArtifactExecutor executor =
+                ArtifactExecutor.fromConfiguration(ctx.getConfiguration(), ArtifactExecutor.Mode.PARALLEL);
+        final List<BundleScan> scans = executor.execute(bundles, bd -> ctx.isCancelled() ? null : scanBundle(bd));
+        if (ctx.isCancelled()) {
+            return;
+        }
+
+        final Map<String, List<Artifact>> packageMap = new HashMap<>();
+        for (final BundleScan scan : scans) {
+            final ArtifactId id = scan.bundle.getArtifact().getId();
+            if (scan.classPath != null) {
+                ctx.reportArtifactWarning(id, "Found bundle classpath in : " + scan.classPath);
+            }
+            for (final String error : scan.errors) {
+                ctx.reportArtifactError(id, error);
+            }
+            for (final String p : scan.packages) {
+                List<Artifact> list = packageMap.get(p);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    packageMap.put(p, list);
                 }
+                list.add(scan.bundle.getArtifact());
             }
         }
 
@@ -114,4 +88,44 @@ public class CheckBundlesForConnect implements AnalyserTask {
             }
         }
     }
+
+    private BundleScan scanBundle(final BundleDescriptor bd) {
+        final BundleScan scan = new BundleScan(bd);
+        scan.classPath = bd.getManifest().getMainAttributes().getValue(Constants.BUNDLE_CLASSPATH);
+        try {
+            final BundleContentIndex index = bd.getContentIndex();
+            addPackages(scan, index.getPackages(), "Bundle contains classes in the default package");
+            for (final Set<String> packages : index.getClassPathPackages().values()) {
+                addPackages(scan, packages, "Bundle contains (embedded) classes in the default package");
+            }
+        } catch (final IOException ioe) {
+            scan.errors.add("Unable to scan bundle: " + ioe.getMessage());
+        }
+        return scan;
+    }
+
+    private void addPackages(final BundleScan scan, final Set<String> packages, final String defaultPackageError) {
+        for (final String p : packages) {
+            if (p.isEmpty()) {
+                scan.errors.add(defaultPackageError);
+            } else {
+                // report packages with the slash notation of the entry names
+                scan.packages.add(p.replace('.', '/'));
+            }
+        }
+    }
+
+    /**
+     * The result of scanning a single bundle
+     */
+    private static final class BundleScan {
+        final BundleDescriptor bundle;
+        final Set<String> packages = new HashSet<>();
+        final List<String> errors = new ArrayList<>();
+        String classPath;
+
+        BundleScan(final BundleDescriptor bundle) {
+            this.bundle = bundle;
+        }
+    }
 }
@@ -18,6 +18,11 @@
  */
 package org.apache.sling.feature.analyser.task.impl;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.sling.feature.Artifact;
@@ -26,6 +31,7 @@ import org.apache.sling.feature.Artifacts;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.impl.ArtifactExecutor;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.builder.FeatureProvider;
@@ -52,6 +58,9 @@ public class CheckCompareFeatures implements AnalyserTask {
 
         String ext = cfg.get("compare-extension");
         String mode = cfg.getOrDefault("compare-mode", "SAME");
+        if (!"SAME".equals(mode) && !"DIFFERENT".equals(mode)) {
+            throw new Exception("Unknown comparison mode: " + mode);
+        }
         String type = cfg.getOrDefault("compare-type", "ARTIFACTS");
         if (!"ARTIFACTS".equals(type)) {
             throw new Exception("The only supported value for 'compare-type' right now is ARTIFACTS");
@@ -64,69 +73,138 @@ public class CheckCompareFeatures implements AnalyserTask {
             throw new Exception("This analyser requires a Feature Provider to be set in the Analyser Task Context.");
         }
 
-        Feature feat = featureProvider.provide(ArtifactId.fromMvnId(aid));
-        if (feat == null) throw new Exception("Feature not found: " + aid);
+        // several baselines can be compared with, they are provided concurrently
+        List<String> baselineIds = new ArrayList<>();
+        for (String id : aid.split(",")) {
+            if (!id.trim().isEmpty()) {
+                baselineIds.add(id.trim());
+            }
+        }
+        ArtifactExecutor executor = ArtifactExecutor.fromConfiguration(cfg, ArtifactExecutor.Mode.PARALLEL);
+        List<Feature> baselines = executor.execute(baselineIds, id -> {
+            Feature feat = featureProvider.provide(ArtifactId.fromMvnId(id));
+            if (feat == null) throw new Exception("Feature not found: " + id);
+            return feat;
+        });
 
-        Artifacts mainArts = getArtifactsToCompare(feat, ext);
         Artifacts compArts = getArtifactsToCompare(ctx.getFeature(), ext);
+        for (Feature feat : baselines) {
+            Artifacts mainArts = getArtifactsToCompare(feat, ext);
 
-        String violationMessage = null;
-        switch (mode) {
-            case "SAME":
-                violationMessage = assertArtifactsSame(mainArts, compArts, strictMetadata);
-                break;
-            case "DIFFERENT":
-                violationMessage = assertArtifactsSame(mainArts, compArts, strictMetadata);
-                if (violationMessage == null) {
-                    violationMessage = "Artifacts are not different";
+            String violationMessage = assertArtifactsSame(mainArts, compArts, strictMetadata);
+            if ("DIFFERENT".equals(mode)) {
+                violationMessage = violationMessage == null ? "Artifacts are not different" : null;
+            }
+
+            if (violationMessage != null) {
+                String origin;
+                if (ext == null) {
+                    origin = "bundles";
                 } else {
-                    violationMessage = null;
+                    origin = "extension " + ext;
                 }
-                break;
-            default:
-                throw new Exception("Unknown comparison mode: " + mode);
-        }
 
-        if (violationMessage != null) {
-            String origin;
-            if (ext == null) {
-                origin = "bundles";
-            } else {
-                origin = "extension " + ext;
+                ctx.reportError("Compare " + origin + " in feature " + feat.getId() + " and "
+                        + ctx.getFeature().getId() + " failed: " + violationMessage);
             }
-
-            ctx.reportError("Compare " + origin + " in feature " + feat.getId() + " and "
-                    + ctx.getFeature().getId() + " failed: " + violationMessage);
         }
     }
 
     static String assertArtifactsSame(Artifacts mainArts, Artifacts compArts, boolean strictMetadata) {
-        if (mainArts.size() != compArts.size()) {
-            return "Compared artifacts are of different sizes";
+        Diff diff = diff(mainArts, compArts, strictMetadata);
+        return diff.isEmpty() ? null : diff.toString();
+    }
+
+    /**
+     * Compare two lists of artifacts. Artifacts are matched by their id first, the
+     * remaining artifacts are matched by their id without the version.
+     * @param mainArts The artifacts to compare with
+     * @param compArts The compared artifacts
+     * @param compareMetadata Whether the metadata of matching artifacts is compared
+     * @return The differences
+     */
+    static Diff diff(Artifacts mainArts, Artifacts compArts, boolean compareMetadata) {
+        Diff diff = new Diff();
+
+        Map<ArtifactId, Deque<Artifact>> unmatched = new LinkedHashMap<>();
+        for (Artifact a : compArts) {
+            unmatched.computeIfAbsent(a.getId(), key -> new ArrayDeque<>()).add(a);
         }
 
+        List<Artifact> removed = new ArrayList<>();
         for (Artifact a : mainArts) {
-            Artifact a2 = findArtifact(compArts, a.getId());
+            Deque<Artifact> candidates = unmatched.get(a.getId());
+            Artifact a2 = candidates == null ? null : candidates.poll();
             if (a2 == null) {
-                return "Artifact " + a.getId() + " not found.";
+                removed.add(a);
+            } else if (compareMetadata && !a.getMetadata().equals(a2.getMetadata())) {
+                diff.metadataChanged.add(new Artifact[] {a, a2});
             }
+        }
 
-            if (strictMetadata) {
-                Map<String, String> md1 = a.getMetadata();
-                Map<String, String> md2 = a2.getMetadata();
-                if (!md1.equals(md2)) {
-                    return "Metadata of " + a.getId() + " is different: " + md1 + " vs " + md2;
-                }
+        Map<String, Deque<Artifact>> added = new LinkedHashMap<>();
+        for (Deque<Artifact> candidates : unmatched.values()) {
+            for (Artifact a : candidates) {
+                added.computeIfAbsent(getVersionlessKey(a.getId()), key -> new ArrayDeque<>())
+                        .add(a);
+            }
+        }
+
+        for (Artifact a : removed) {
+            Deque<Artifact> candidates = added.get(getVersionlessKey(a.getId()));
+            Artifact a2 = candidates == null ? null : candidates.poll();
+            if (a2 == null) {
+                diff.removed.add(a);
+            } else {
+                diff.versionChanged.add(new Artifact[] {a, a2});
             }
         }
-        return null;
+        for (Deque<Artifact> candidates : added.values()) {
+            diff.added.addAll(candidates);
+        }
+        return diff;
+    }
+
+    private static String getVersionlessKey(ArtifactId id) {
+        return id.getGroupId() + ':' + id.getArtifactId() + ':' + id.getType() + ':' + id.getClassifier();
     }
 
-    private static Artifact findArtifact(Artifacts list, ArtifactId artifactId) {
-        for (Artifact a : list) {
-            if (a.getId().equals(artifactId)) return a;
+    /**
+     * The differences between two lists of artifacts
+     */
+    static final class Diff {
+        final List<Artifact> added = new ArrayList<>();
+        final List<Artifact> removed = new ArrayList<>();
+        final List<Artifact[]> versionChanged = new ArrayList<>();
+        final List<Artifact[]> metadataChanged = new ArrayList<>();
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && versionChanged.isEmpty() && metadataChanged.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            List<String> parts = new ArrayList<>();
+            if (!added.isEmpty()) {
+                List<ArtifactId> ids = new ArrayList<>();
+                added.forEach(a -> ids.add(a.getId()));
+                parts.add("Artifacts added: " + ids);
+            }
+            if (!removed.isEmpty()) {
+                List<ArtifactId> ids = new ArrayList<>();
+                removed.forEach(a -> ids.add(a.getId()));
+                parts.add("Artifacts not found: " + ids);
+            }
+            for (Artifact[] pair : versionChanged) {
+                parts.add("Version of " + pair[0].getId() + " changed to "
+                        + pair[1].getId().getVersion());
+            }
+            for (Artifact[] pair : metadataChanged) {
+                parts.add("Metadata of " + pair[0].getId() + " is different: " + pair[0].getMetadata() + " vs "
+                        + pair[1].getMetadata());
+            }
+            return String.join(". ", parts);
         }
-        return null;
     }
 
     static Artifacts getArtifactsToCompare(Feature feat, String ext) throws Exception {
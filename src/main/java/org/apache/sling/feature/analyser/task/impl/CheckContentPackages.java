@@ -18,14 +18,16 @@
  */
 package org.apache.sling.feature.analyser.task.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -33,15 +35,18 @@ import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 
+import org.apache.jackrabbit.vault.validation.ValidationExecutorFactory;
 import org.apache.jackrabbit.vault.validation.ValidationViolation;
 import org.apache.jackrabbit.vault.validation.impl.util.ValidatorSettingsImpl;
 import org.apache.jackrabbit.vault.validation.spi.ValidationMessageSeverity;
 import org.apache.jackrabbit.vault.validation.spi.ValidatorFactory;
 import org.apache.jackrabbit.vault.validation.spi.ValidatorSettings;
 import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.analyser.impl.ArtifactExecutor;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.analyser.task.impl.contentpackage.PackageValidator;
+import org.apache.sling.feature.analyser.task.impl.contentpackage.ValidationResultCache;
 import org.apache.sling.feature.scanner.ContentPackageDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +58,12 @@ public class CheckContentPackages implements AnalyserTask {
     // Comma separated list of validator ids to enable
     static final String ENABLED_VALIDATORS = "enabled-validators";
     static final String MAX_REPORT_LEVEL = "max-report-level";
+    // Directory to cache the validation results in
+    static final String CACHE_DIRECTORY = "cache-directory";
+
+    private static final Comparator<ContentPackageDescriptor> PACKAGE_ORDER = Comparator.comparing(
+                    (ContentPackageDescriptor cp) -> cp.getArtifact().getId())
+            .thenComparing(ContentPackageDescriptor::getName);
     private Logger log = LoggerFactory.getLogger(this.getClass());
 
     @Override
@@ -67,31 +78,76 @@ public class CheckContentPackages implements AnalyserTask {
 
     @Override
     public void execute(final AnalyserTaskContext ctx) throws Exception {
-        String enabledValidators = ctx.getConfiguration().get(ENABLED_VALIDATORS);
+        Set<String> enabledValidators = split(ctx.getConfiguration().get(ENABLED_VALIDATORS));
         Map<String, ValidatorSettings> validatorSettings = enableValidators(enabledValidators);
         String maxReportLevelSt = ctx.getConfiguration().get(MAX_REPORT_LEVEL);
         ValidationMessageSeverity maxReportLevel = maxReportLevelSt == null
                 ? ValidationMessageSeverity.WARN
                 : ValidationMessageSeverity.valueOf(maxReportLevelSt);
+        String cacheDirectory = ctx.getConfiguration().get(CACHE_DIRECTORY);
+        ValidationResultCache cache =
+                cacheDirectory == null ? null : new ValidationResultCache(new File(cacheDirectory));
+        final List<ContentPackageDescriptor> packages = new ArrayList<>();
         for (final ContentPackageDescriptor cp :
                 ctx.getFeatureDescriptor().getDescriptors(ContentPackageDescriptor.class)) {
-            URL artifactFile = cp.getArtifactFile();
-            if (artifactFile == null) {
+            if (cp.getArtifactFile() == null) {
                 ctx.reportArtifactError(
                         cp.getArtifact().getId(),
                         "Content package " + cp.getName() + " is not resolved and can not be checked.");
             } else {
-                validatePackage(ctx, cp, artifactFile, validatorSettings, maxReportLevel);
+                packages.add(cp);
+            }
+        }
+
+        // report in a stable order, independent of the order of the descriptors
+        packages.sort(PACKAGE_ORDER);
+
+        // packages are validated concurrently, the factory loading the validators is shared
+        final ValidationExecutorFactory factory =
+                new ValidationExecutorFactory(PackageValidator.class.getClassLoader());
+        final ArtifactExecutor executor =
+                ArtifactExecutor.fromConfiguration(ctx.getConfiguration(), ArtifactExecutor.Mode.PARALLEL);
+        final List<List<ValidationResultCache.Result>> results = executor.execute(packages, cp -> {
+            if (ctx.isCancelled()) {
+                return null;
+            }
+            final Path artifactPath = Paths.get(cp.getArtifactFile().toURI());
+            final String key =
+                    cache == null ? null : cache.getKey(artifactPath.toFile(), enabledValidators, maxReportLevel);
+            if (key != null) {
+                final List<ValidationResultCache.Result> cached = cache.load(key);
+                if (cached != null) {
+                    log.debug("Using cached validation results for content package {}", cp.getName());
+                    return cached;
+                }
+            }
+            final List<ValidationResultCache.Result> packageResults = new ArrayList<>();
+            for (final ValidationViolation violation : validatePackage(cp, validatorSettings, factory)) {
+                packageResults.add(new ValidationResultCache.Result(
+                        getMin(maxReportLevel, violation.getSeverity()), getDetailMessage(violation, artifactPath)));
+            }
+            if (key != null) {
+                cache.store(key, packageResults);
+            }
+            return packageResults;
+        });
+        for (int i = 0; i < packages.size(); i++) {
+            if (results.get(i) == null) {
+                // cancelled
+                continue;
+            }
+            final ContentPackageDescriptor cp = packages.get(i);
+            for (final ValidationResultCache.Result result : results.get(i)) {
+                reportViolation(ctx, cp, result.getMessage(), result.getSeverity());
             }
         }
     }
 
-    private Map<String, ValidatorSettings> enableValidators(String enabledValidators) {
+    private Map<String, ValidatorSettings> enableValidators(Set<String> enabledValidatorsSet) {
         ServiceLoader<ValidatorFactory> validatorFactories =
                 ServiceLoader.load(ValidatorFactory.class, PackageValidator.class.getClassLoader());
 
         Map<String, ValidatorSettings> validatorSettings = new HashMap<>();
-        Set<String> enabledValidatorsSet = split(enabledValidators);
         for (ValidatorFactory validatorFactory : validatorFactories) {
             String validatorId = validatorFactory.getId();
             boolean enabled = enabledValidatorsSet.contains(validatorId);
@@ -109,30 +165,14 @@ public class CheckContentPackages implements AnalyserTask {
         return enabled;
     }
 
-    private void validatePackage(
-            final AnalyserTaskContext ctx,
+    private Collection<ValidationViolation> validatePackage(
             final ContentPackageDescriptor cp,
-            URL artifactFile,
-            Map<String, ValidatorSettings> validatorSettings,
-            ValidationMessageSeverity maxReportLevel)
+            final Map<String, ValidatorSettings> validatorSettings,
+            final ValidationExecutorFactory factory)
             throws URISyntaxException, IOException {
-        URI artifactURI = artifactFile.toURI();
-        Path artifactPath = Paths.get(artifactURI);
-        PackageValidator validator = new PackageValidator(artifactURI, validatorSettings);
-        Collection<ValidationViolation> violations = validator.validate();
-        reportViolations(ctx, cp, violations, artifactPath, maxReportLevel);
-    }
-
-    private void reportViolations(
-            AnalyserTaskContext ctx,
-            ContentPackageDescriptor cp,
-            Collection<ValidationViolation> violations,
-            Path artifactPath,
-            ValidationMessageSeverity maxReportLevel) {
-        for (ValidationViolation violation : violations) {
-            ValidationMessageSeverity severity = getMin(maxReportLevel, violation.getSeverity());
-            reportViolation(ctx, cp, violation, artifactPath, severity);
-        }
+        URI artifactURI = cp.getArtifactFile().toURI();
+        PackageValidator validator = new PackageValidator(artifactURI, validatorSettings, factory);
+        return validator.validate();
     }
 
     private ValidationMessageSeverity getMin(ValidationMessageSeverity a, ValidationMessageSeverity b) {
@@ -140,12 +180,7 @@ public class CheckContentPackages implements AnalyserTask {
     }
 
     private void reportViolation(
-            AnalyserTaskContext ctx,
-            ContentPackageDescriptor cp,
-            ValidationViolation violation,
-            Path artifactPath,
-            ValidationMessageSeverity severity) {
-        String msg = getDetailMessage(violation, artifactPath);
+            AnalyserTaskContext ctx, ContentPackageDescriptor cp, String msg, ValidationMessageSeverity severity) {
         ArtifactId id = cp.getArtifact().getId();
         switch (severity) {
             case ERROR:
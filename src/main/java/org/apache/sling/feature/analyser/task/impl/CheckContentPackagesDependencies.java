@@ -20,31 +20,28 @@ package org.apache.sling.feature.analyser.task.impl;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 
 import org.apache.jackrabbit.vault.packaging.Dependency;
 import org.apache.jackrabbit.vault.packaging.PackageId;
-import org.apache.jackrabbit.vault.packaging.PackageManager;
-import org.apache.jackrabbit.vault.packaging.VaultPackage;
-import org.apache.jackrabbit.vault.packaging.impl.PackageManagerImpl;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.io.IOUtils;
-import org.apache.sling.feature.scanner.ArtifactDescriptor;
 import org.apache.sling.feature.scanner.ContentPackageDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class CheckContentPackagesDependencies implements AnalyserTask {
 
-    private final PackageManager packageManager = new PackageManagerImpl();
-
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     @Override
@@ -59,84 +56,129 @@ public class CheckContentPackagesDependencies implements AnalyserTask {
 
     @Override
     public void execute(AnalyserTaskContext ctx) throws Exception {
-        Map<PackageId, Dependency[]> dependenciesMap = new HashMap<>();
-
-        for (ArtifactDescriptor descriptor :
+        // the package ids and dependencies have been read from the package properties by the scanner
+        PackageIndex index = new PackageIndex();
+        for (ContentPackageDescriptor descriptor :
                 ctx.getFeatureDescriptor().getDescriptors(ContentPackageDescriptor.class)) {
-            onDescriptor(ctx, descriptor, dependenciesMap);
-        }
-
-        for (PackageId contentPackageId : dependenciesMap.keySet()) {
-            verifyDependenciesTree(ctx, contentPackageId, dependenciesMap);
-        }
-    }
-
-    private void onDescriptor(
-            AnalyserTaskContext ctx, ArtifactDescriptor descriptor, Map<PackageId, Dependency[]> dependenciesMap)
-            throws Exception {
-        URL resourceUrl = descriptor.getArtifactFile();
-        if (resourceUrl != null) {
+            URL resourceUrl = descriptor.getArtifactFile();
+            if (resourceUrl == null) {
+                ctx.reportArtifactError(
+                        descriptor.getArtifact().getId(),
+                        "Ignoring " + descriptor.getName() + " as file could not be found");
+                continue;
+            }
             File artifactFile = IOUtils.getFileFromURL(resourceUrl, true, null);
             if (!artifactFile.exists() || !artifactFile.isFile()) {
                 ctx.reportArtifactError(
                         descriptor.getArtifact().getId(),
                         "Artifact file " + artifactFile + " does not exist or it is not a file");
-                return;
+            } else if (descriptor.getPackageName() == null) {
+                ctx.reportArtifactError(
+                        descriptor.getArtifact().getId(),
+                        "Ignoring " + descriptor.getName() + " as it has no package properties");
+            } else {
+                index.add(descriptor);
             }
+        }
 
-            try (VaultPackage vaultPackage = packageManager.open(artifactFile, true)) {
-                PackageId packageId = vaultPackage.getId();
-
-                logger.debug("Collecting " + packageId + " dependencies...");
+        for (PackageId contentPackageId : index.getPackageIds()) {
+            if (ctx.isCancelled()) {
+                return;
+            }
+            verifyDependenciesTree(ctx, contentPackageId, index);
+        }
+    }
 
-                dependenciesMap.put(packageId, vaultPackage.getDependencies());
+    private void verifyDependenciesTree(AnalyserTaskContext ctx, PackageId root, PackageIndex index) {
+        logger.debug("Verifying {} transitive dependencies...", root);
 
-                logger.debug(packageId + " dependencies collected.");
+        for (Dependency dependency : index.getClosure(root)) {
+            if (index.resolve(dependency) == null) {
+                ctx.reportError("Missing " + dependency + " dependency for " + root);
             }
-        } else {
-            ctx.reportArtifactError(
-                    descriptor.getArtifact().getId(),
-                    "Ignoring " + descriptor.getName() + " as file could not be found");
         }
     }
 
-    private void verifyDependenciesTree(
-            AnalyserTaskContext ctx, PackageId root, Map<PackageId, Dependency[]> dependenciesMap) {
-        logger.debug("Verifying " + root + " transitive dependencies...");
+    /**
+     * The content packages by group and name, with their dependencies. Resolved
+     * dependencies and transitive closures are memoized.
+     */
+    private static final class PackageIndex {
 
-        Queue<Dependency> toBeVisited = new LinkedList<>();
-        enqueue(toBeVisited, dependenciesMap.get(root));
+        private final Map<PackageId, Dependency[]> dependencies = new LinkedHashMap<>();
 
-        Set<Dependency> alreadyVisited = new HashSet<>();
+        private final Map<String, List<PackageId>> packagesByName = new HashMap<>();
 
-        while (!toBeVisited.isEmpty()) {
-            Dependency current = toBeVisited.poll();
+        private final Map<Dependency, PackageId> resolved = new HashMap<>();
 
-            if (alreadyVisited.add(current)) {
-                boolean found = false;
+        private final Map<PackageId, Set<Dependency>> closures = new HashMap<>();
 
-                for (Entry<PackageId, Dependency[]> entry : dependenciesMap.entrySet()) {
-                    if (current.matches(entry.getKey())) {
-                        enqueue(toBeVisited, entry.getValue());
-                        found = true;
-                        break;
-                    }
-                }
+        void add(ContentPackageDescriptor descriptor) {
+            PackageId id = new PackageId(
+                    descriptor.getPackageGroup(), descriptor.getPackageName(), descriptor.getPackageVersion());
+            String value = descriptor.getPackageDependencies();
+            dependencies.put(id, value == null ? new Dependency[0] : Dependency.parse(value));
+            packagesByName
+                    .computeIfAbsent(getKey(id.getGroup(), id.getName()), key -> new ArrayList<>())
+                    .add(id);
+        }
 
-                if (!found) {
-                    ctx.reportError("Missing " + current + " dependency for " + root);
-                }
-            }
+        private static String getKey(String group, String name) {
+            return String.valueOf(group).concat(":").concat(name);
         }
-    }
 
-    private static void enqueue(Queue<Dependency> target, Dependency... dependencies) {
-        if (dependencies == null) {
-            return;
+        Set<PackageId> getPackageIds() {
+            return dependencies.keySet();
         }
 
-        for (Dependency dependency : dependencies) {
-            target.offer(dependency);
+        /**
+         * Resolve a dependency to the first matching package
+         * @return The package id or {@code null}
+         */
+        PackageId resolve(Dependency dependency) {
+            if (resolved.containsKey(dependency)) {
+                return resolved.get(dependency);
+            }
+            PackageId result = null;
+            for (PackageId candidate : packagesByName.getOrDefault(
+                    getKey(dependency.getGroup(), dependency.getName()), Collections.emptyList())) {
+                if (dependency.matches(candidate)) {
+                    result = candidate;
+                    break;
+                }
+            }
+            resolved.put(dependency, result);
+            return result;
+        }
+
+        /**
+         * Get all dependencies reachable from a package
+         * @return The dependencies in breadth first order
+         */
+        Set<Dependency> getClosure(PackageId root) {
+            Set<Dependency> closure = closures.get(root);
+            if (closure == null) {
+                closure = new LinkedHashSet<>();
+                Queue<Dependency> toBeVisited = new LinkedList<>();
+                Collections.addAll(toBeVisited, dependencies.get(root));
+                while (!toBeVisited.isEmpty()) {
+                    Dependency current = toBeVisited.poll();
+                    if (closure.add(current)) {
+                        PackageId target = resolve(current);
+                        if (target != null) {
+                            Set<Dependency> known = closures.get(target);
+                            if (known != null) {
+                                // the closure of the target is complete
+                                closure.addAll(known);
+                            } else {
+                                Collections.addAll(toBeVisited, dependencies.get(target));
+                            }
+                        }
+                    }
+                }
+                closures.put(root, closure);
+            }
+            return closure;
         }
     }
 }
@@ -19,6 +19,7 @@
 package org.apache.sling.feature.analyser.task.impl;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -27,6 +28,7 @@ import java.util.TreeMap;
 import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.analyser.task.TaskFingerprint;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 
 public class CheckDuplicateSymbolicName implements AnalyserTask {
@@ -45,14 +47,26 @@ public class CheckDuplicateSymbolicName implements AnalyserTask {
         // build a map of bundles by symbolic name
 
         final SortedMap<String, Set<ArtifactId>> bundleMap = new TreeMap<>();
-        for (final BundleDescriptor desc : ctx.getFeatureDescriptor().getBundleDescriptors()) {
-            final String key = desc.getBundleSymbolicName();
-            final Set<ArtifactId> set = bundleMap.computeIfAbsent(key, id -> new HashSet<>());
-            set.add(desc.getArtifact().getId());
+        for (final Map.Entry<String, List<BundleDescriptor>> entry :
+                ctx.getFeatureDescriptor().getIndex().getBundlesBySymbolicName().entrySet()) {
+            final Set<ArtifactId> set = new HashSet<>();
+            for (final BundleDescriptor desc : entry.getValue()) {
+                set.add(desc.getArtifact().getId());
+            }
+            bundleMap.put(entry.getKey(), set);
         }
         return bundleMap;
     }
 
+    @Override
+    public String getInputFingerprint(final AnalyserTaskContext ctx) {
+        final TaskFingerprint fingerprint = new TaskFingerprint();
+        for (final BundleDescriptor desc : ctx.getFeatureDescriptor().getBundleDescriptors()) {
+            fingerprint.add(desc.getArtifact().getId().toMvnId()).add(desc.getBundleSymbolicName());
+        }
+        return fingerprint.build();
+    }
+
     @Override
     public void execute(final AnalyserTaskContext ctx) throws Exception {
         final SortedMap<String, Set<ArtifactId>> bundleMap = createBundleMap(ctx);
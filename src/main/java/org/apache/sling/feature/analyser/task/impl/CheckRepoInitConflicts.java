@@ -20,7 +20,6 @@ package org.apache.sling.feature.analyser.task.impl;
 
 import java.util.List;
 
-import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.analyser.task.impl.repoinitconflicts.RepoInitConflictsValidator;
@@ -41,16 +40,16 @@ public class CheckRepoInitConflicts implements AnalyserTask {
     /**
      * Executes the Repoinit conflict validation.
      * <p>
-     * This method retrieves the feature from the context, validates it using
+     * This method retrieves the feature and its parsed repoinit from the context, validates it using
      * {@link RepoInitConflictsValidator}, and reports a warning if any conflicts are found.
      *
      * @param context analyser task context containing the feature to validate
      */
     @Override
     public void execute(final AnalyserTaskContext context) {
-        Feature feature = context.getFeature();
+        RepoInitModel model = RepoInitModel.get(context);
 
-        ValidationReport report = RepoInitConflictsValidator.validate(feature);
+        ValidationReport report = RepoInitConflictsValidator.validate(model.getFeature(), model);
 
         if (!report.hasConflicts()) {
             return;
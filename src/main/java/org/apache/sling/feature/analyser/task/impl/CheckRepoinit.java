@@ -18,17 +18,12 @@
  */
 package org.apache.sling.feature.analyser.task.impl;
 
-import java.io.StringReader;
-
 import org.apache.sling.feature.Configuration;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
-import org.apache.sling.repoinit.parser.RepoInitParser;
-import org.apache.sling.repoinit.parser.RepoInitParsingException;
-import org.apache.sling.repoinit.parser.impl.RepoInitParserService;
-import org.osgi.util.converter.Converters;
+import org.apache.sling.feature.analyser.task.TaskFingerprint;
 
 public class CheckRepoinit implements AnalyserTask {
 
@@ -47,52 +42,36 @@ public class CheckRepoinit implements AnalyserTask {
     }
 
     @Override
-    public void execute(final AnalyserTaskContext ctx) {
-        // check extension
-        final Extension ext = ctx.getFeature().getExtensions().getByName(Extension.EXTENSION_NAME_REPOINIT);
-        if (ext != null) {
-            if (ext.getType() != ExtensionType.TEXT) {
-                ctx.reportExtensionError(Extension.EXTENSION_NAME_REPOINIT, "Repoinit extension must be of type TEXT");
-            } else {
-                check(ctx, "extension", ext.getText());
-            }
-        }
-
-        // configuration
-        final Configuration cfg = ctx.getFeature().getConfigurations().getConfiguration(PID);
-        if (cfg != null) {
-            check(ctx, cfg, false);
-        }
+    public String getInputFingerprint(final AnalyserTaskContext ctx) {
+        final TaskFingerprint fingerprint = new TaskFingerprint()
+                .add(ctx.getFeature().getExtensions().getByName(Extension.EXTENSION_NAME_REPOINIT))
+                .add(ctx.getFeature().getConfigurations().getConfiguration(PID));
         for (final Configuration c : ctx.getFeature().getConfigurations()) {
             if (FACTORY_PID.equals(c.getFactoryPid())) {
-                check(ctx, c, true);
+                fingerprint.add(c);
             }
         }
+        return fingerprint.build();
     }
 
-    private void check(final AnalyserTaskContext ctx, final Configuration cfg, final boolean supportsScripts) {
-        // for now we only check scripts
-        if (supportsScripts) {
-            final Object val = cfg.getProperties().get("scripts");
-            if (val != null) {
-                final String[] scripts =
-                        Converters.standardConverter().convert(val).to(String[].class);
-                for (final String contents : scripts) {
-                    check(ctx, "configuration ".concat(cfg.getPid()), contents);
-                }
-            }
+    @Override
+    public void execute(final AnalyserTaskContext ctx) {
+        // check extension
+        final Extension ext = ctx.getFeature().getExtensions().getByName(Extension.EXTENSION_NAME_REPOINIT);
+        if (ext != null && ext.getType() != ExtensionType.TEXT) {
+            ctx.reportExtensionError(Extension.EXTENSION_NAME_REPOINIT, "Repoinit extension must be of type TEXT");
         }
-    }
 
-    private void check(final AnalyserTaskContext ctx, final String id, final String contents) {
-        final RepoInitParser parser = new RepoInitParserService();
-
-        try {
-            parser.parse(new StringReader(contents));
-        } catch (RepoInitParsingException e) {
-            ctx.reportExtensionError(
-                    Extension.EXTENSION_NAME_REPOINIT,
-                    "Parsing error in repoinit from ".concat(id).concat(" : ").concat(e.getMessage()));
+        // the extension and the scripts of the factory configurations are parsed once per analysis
+        for (final RepoInitModel.Source source : RepoInitModel.get(ctx).getSources()) {
+            if (source.getError() != null) {
+                ctx.reportExtensionError(
+                        Extension.EXTENSION_NAME_REPOINIT,
+                        "Parsing error in repoinit from "
+                                .concat(source.getId())
+                                .concat(" : ")
+                                .concat(source.getError()));
+            }
         }
     }
 }
@@ -19,17 +19,17 @@
 package org.apache.sling.feature.analyser.task.impl;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 import org.apache.felix.utils.resource.CapabilitySet;
 import org.apache.felix.utils.resource.RequirementImpl;
+import org.apache.felix.utils.resource.SimpleFilter;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.scanner.ArtifactDescriptor;
@@ -37,6 +37,7 @@ import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.apache.sling.feature.scanner.Descriptor;
 import org.osgi.framework.wiring.BundleRevision;
 import org.osgi.namespace.service.ServiceNamespace;
+import org.osgi.resource.Capability;
 import org.osgi.resource.Namespace;
 import org.osgi.resource.Requirement;
 
@@ -56,9 +57,9 @@ public class CheckRequirementsCapabilities implements AnalyserTask {
     @Override
     public void execute(AnalyserTaskContext ctx) throws Exception {
         final SortedMap<Integer, List<Descriptor>> artifactsMap = new TreeMap<>();
-        for (final BundleDescriptor bi : ctx.getFeatureDescriptor().getBundleDescriptors()) {
-            List<Descriptor> list = getDescriptorList(bi.getArtifact().getStartOrder(), artifactsMap);
-            list.add(bi);
+        for (final Map.Entry<Integer, List<BundleDescriptor>> entry :
+                ctx.getFeatureDescriptor().getIndex().getBundlesByStartOrder().entrySet()) {
+            artifactsMap.put(entry.getKey(), new ArrayList<>(entry.getValue()));
         }
 
         if (!ctx.getFeatureDescriptor().getArtifactDescriptors().isEmpty()) {
@@ -81,13 +82,16 @@ public class CheckRequirementsCapabilities implements AnalyserTask {
         getDescriptorList(highestStartLevel, artifactsMap).add(featureReqs);
 
         // add system artifact
-        final List<Descriptor> artifacts = new ArrayList<>();
+        final CapabilityIndex artifacts = new CapabilityIndex();
         if (ctx.getFrameworkDescriptor() != null) {
             artifacts.add(ctx.getFrameworkDescriptor());
         }
 
         boolean errorReported = false;
         for (final Map.Entry<Integer, List<Descriptor>> entry : artifactsMap.entrySet()) {
+            if (ctx.isCancelled()) {
+                break;
+            }
             // first add all providing artifacts
             for (final Descriptor info : entry.getValue()) {
                 if (info.getCapabilities() != null) {
@@ -104,7 +108,7 @@ public class CheckRequirementsCapabilities implements AnalyserTask {
                         // Service namespace is special - we don't provide errors or warnings in this case
                         if (!BundleRevision.PACKAGE_NAMESPACE.equals(ns)
                                 && !ServiceNamespace.SERVICE_NAMESPACE.equals(ns)) {
-                            List<Descriptor> candidates = getCandidates(artifacts, requirement);
+                            List<Descriptor> candidates = artifacts.getCandidates(requirement);
 
                             String cardinality = requirement
                                     .getDirectives()
@@ -184,13 +188,106 @@ public class CheckRequirementsCapabilities implements AnalyserTask {
         return list;
     }
 
-    private List<Descriptor> getCandidates(List<Descriptor> artifactDescriptors, Requirement requirement) {
-        return artifactDescriptors.stream()
-                .filter(ad -> Optional.ofNullable(ad.getCapabilities(requirement.getNamespace()))
-                        .map(Collection::stream)
-                        .map(capabilities -> capabilities.anyMatch(c -> CapabilitySet.matches(c, requirement)))
-                        .orElse(false))
-                .collect(Collectors.toList());
+    /**
+     * Index of the capabilities of the artifacts of the already processed start
+     * levels. Capabilities are indexed by namespace and the value of the attribute
+     * named like the namespace, for example {@code osgi.extender} or
+     * {@code osgi.serviceloader}. A requirement filter testing that attribute for
+     * equality is only evaluated against the capabilities with that value.
+     */
+    private static final class CapabilityIndex {
+
+        private static final class Entry {
+            final int order;
+            final Descriptor descriptor;
+            final Capability capability;
+
+            Entry(final int order, final Descriptor descriptor, final Capability capability) {
+                this.order = order;
+                this.descriptor = descriptor;
+                this.capability = capability;
+            }
+        }
+
+        private final Map<String, Map<String, List<Entry>>> byValue = new HashMap<>();
+
+        /** Capabilities without a string value for the primary attribute */
+        private final Map<String, List<Entry>> unindexed = new HashMap<>();
+
+        private int order;
+
+        void add(final Descriptor descriptor) {
+            final int current = this.order++;
+            for (final Capability cap : descriptor.getCapabilities()) {
+                final Entry entry = new Entry(current, descriptor, cap);
+                final Object value = cap.getAttributes().get(cap.getNamespace());
+                if (value instanceof String) {
+                    this.byValue
+                            .computeIfAbsent(cap.getNamespace(), key -> new HashMap<>())
+                            .computeIfAbsent((String) value, key -> new ArrayList<>())
+                            .add(entry);
+                } else {
+                    this.unindexed
+                            .computeIfAbsent(cap.getNamespace(), key -> new ArrayList<>())
+                            .add(entry);
+                }
+            }
+        }
+
+        /**
+         * Get the artifacts providing a capability matching the requirement
+         * @param requirement The requirement
+         * @return The artifacts in the order they were added
+         */
+        List<Descriptor> getCandidates(final Requirement requirement) {
+            final String namespace = requirement.getNamespace();
+            final SimpleFilter filter = RequirementImpl.getFilter(requirement);
+            final Map<Integer, Descriptor> result = new TreeMap<>();
+
+            final Map<String, List<Entry>> values = this.byValue.getOrDefault(namespace, Collections.emptyMap());
+            final String value = getPrimaryValue(filter, namespace);
+            if (value != null) {
+                match(values.getOrDefault(value, Collections.emptyList()), filter, result);
+            } else {
+                for (final List<Entry> entries : values.values()) {
+                    match(entries, filter, result);
+                }
+            }
+            match(this.unindexed.getOrDefault(namespace, Collections.emptyList()), filter, result);
+            return new ArrayList<>(result.values());
+        }
+
+        private static void match(
+                final List<Entry> entries, final SimpleFilter filter, final Map<Integer, Descriptor> result) {
+            for (final Entry entry : entries) {
+                if (!result.containsKey(entry.order) && CapabilitySet.matches(entry.capability, filter)) {
+                    result.put(entry.order, entry.descriptor);
+                }
+            }
+        }
+
+        /**
+         * Get the value the filter requires for the primary attribute
+         * @param filter The filter
+         * @param namespace The namespace, which is the name of the primary attribute
+         * @return The value or {@code null} if the filter does not require a single value
+         */
+        private static String getPrimaryValue(final SimpleFilter filter, final String namespace) {
+            if (filter.getOperation() == SimpleFilter.EQ
+                    && namespace.equals(filter.getName())
+                    && filter.getValue() instanceof String) {
+                return (String) filter.getValue();
+            }
+            if (filter.getOperation() == SimpleFilter.AND) {
+                for (final Object child : (List<?>) filter.getValue()) {
+                    final String value = getPrimaryValue((SimpleFilter) child, namespace);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+            }
+            return null;
+        }
     }
 
     static class ReqCapDescriptor extends Descriptor {
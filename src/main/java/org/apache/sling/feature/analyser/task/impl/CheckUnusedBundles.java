@@ -19,14 +19,13 @@
 package org.apache.sling.feature.analyser.task.impl;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
 
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.FeatureIndex;
 import org.apache.sling.feature.scanner.PackageInfo;
+import org.osgi.framework.Version;
 
 public class CheckUnusedBundles implements AnalyserTask {
 
@@ -42,53 +41,44 @@ public class CheckUnusedBundles implements AnalyserTask {
 
     @Override
     public void execute(final AnalyserTaskContext ctx) throws IOException {
+        final FeatureIndex index = ctx.getFeatureDescriptor().getIndex();
+
         // iterate over all bundles
         for (final BundleDescriptor info : ctx.getFeatureDescriptor().getBundleDescriptors()) {
+            if (ctx.isCancelled()) {
+                return;
+            }
 
             if (!info.getExportedPackages().isEmpty()) {
 
-                final Set<PackageInfo> exports = new HashSet<>(info.getExportedPackages());
-
-                final Set<String> optionalImports = new HashSet<>();
-
-                // find importing bundle
-                for (final BundleDescriptor inner : ctx.getFeatureDescriptor().getBundleDescriptors()) {
-                    if (inner == info) {
-                        continue;
-                    }
-
-                    final Iterator<PackageInfo> iter = exports.iterator();
-                    while (iter.hasNext()) {
-                        final PackageInfo expPck = iter.next();
+                boolean found = false;
+                boolean optionalImport = false;
 
-                        boolean found = false;
-                        for (final PackageInfo impPck : inner.getImportedPackages()) {
-
-                            if (expPck.getName().equals(impPck.getName())) {
-                                if (impPck.getVersion() == null
-                                        || impPck.getPackageVersionRange().includes(expPck.getPackageVersion())) {
-                                    if (impPck.isOptional()) {
-                                        optionalImports.add(impPck.getName());
-                                    } else {
-                                        found = true;
-                                    }
-                                    break;
-                                }
-                            }
+                for (final PackageInfo expPck : info.getExportedPackages()) {
+                    final Version version = expPck.getPackageVersion();
+                    BundleDescriptor previous = null;
+                    for (final FeatureIndex.PackageImport imp : index.getPackageImports(expPck.getName())) {
+                        // only the first matching import of each other bundle is relevant
+                        if (imp.getBundle() == info || imp.getBundle() == previous) {
+                            continue;
                         }
-
-                        if (found) {
-                            iter.remove();
+                        if (imp.includes(version)) {
+                            previous = imp.getBundle();
+                            if (imp.isOptional()) {
+                                optionalImport = true;
+                            } else {
+                                found = true;
+                                break;
+                            }
                         }
                     }
-
-                    if (exports.isEmpty()) {
+                    if (found) {
                         break;
                     }
                 }
 
-                if (exports.size() == info.getExportedPackages().size()) {
-                    if (!optionalImports.isEmpty()) {
+                if (!found) {
+                    if (optionalImport) {
                         ctx.reportArtifactWarning(
                                 info.getArtifact().getId(),
                                 "Exports from bundle are only imported optionally by other bundles.");
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task.impl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionType;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.repoinit.parser.RepoInitParsingException;
+import org.apache.sling.repoinit.parser.impl.RepoInitParserService;
+import org.apache.sling.repoinit.parser.operations.Operation;
+import org.osgi.util.converter.Converters;
+
+/**
+ * The parsed repoinit of a feature: the repoinit extension and the scripts of the
+ * repoinit factory configurations. The model is created once per analysis and
+ * shared by all repoinit tasks, see {@link #get(AnalyserTaskContext)}.
+ */
+public final class RepoInitModel {
+
+    /**
+     * A parsed repoinit script
+     */
+    public static final class Source {
+
+        private final String id;
+
+        private final Configuration configuration;
+
+        private final List<Operation> operations;
+
+        private final String error;
+
+        Source(
+                final String id,
+                final Configuration configuration,
+                final List<Operation> operations,
+                final String error) {
+            this.id = id;
+            this.configuration = configuration;
+            this.operations = operations;
+            this.error = error;
+        }
+
+        /**
+         * A description of the source, either {@code extension} or {@code configuration <pid>}
+         * @return The description
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * The configuration containing the script
+         * @return The configuration or {@code null} for the extension
+         */
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        /**
+         * The parsed operations
+         * @return The operations, empty if parsing failed
+         */
+        public List<Operation> getOperations() {
+            return operations;
+        }
+
+        /**
+         * The parse error
+         * @return The error or {@code null} if the script was parsed successfully
+         */
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final Feature feature;
+
+    private final List<Source> sources;
+
+    private RepoInitModel(final Feature feature, final List<Source> sources) {
+        this.feature = feature;
+        this.sources = Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * The feature
+     * @return The feature
+     */
+    public Feature getFeature() {
+        return feature;
+    }
+
+    /**
+     * The parsed scripts, the extension first followed by the configurations in
+     * the order of the feature
+     * @return The sources
+     */
+    public List<Source> getSources() {
+        return sources;
+    }
+
+    /**
+     * Get the model for the feature of the analysis. The model is shared between
+     * the tasks of an analysis through {@link AnalyserTaskContext#getSharedValue(Class, java.util.function.Supplier)},
+     * if the context does not provide a value the repoinit is parsed again.
+     * @param ctx The context
+     * @return The model
+     */
+    public static RepoInitModel get(final AnalyserTaskContext ctx) {
+        final RepoInitModel model = ctx.getSharedValue(RepoInitModel.class, () -> create(ctx.getFeature()));
+        if (model != null) {
+            return model;
+        }
+        return create(ctx.getFeature());
+    }
+
+    /**
+     * Parse the repoinit of a feature
+     * @param feature The feature
+     * @return The model
+     */
+    public static RepoInitModel create(final Feature feature) {
+        final List<Source> sources = new ArrayList<>();
+        final Extension ext = feature.getExtensions().getByName(Extension.EXTENSION_NAME_REPOINIT);
+        if (ext != null && ext.getType() == ExtensionType.TEXT && ext.getText() != null) {
+            sources.add(parse("extension", null, ext.getText()));
+        }
+        for (final Configuration c : feature.getConfigurations()) {
+            if (CheckRepoinit.FACTORY_PID.equals(c.getFactoryPid())) {
+                final Object val = c.getProperties().get("scripts");
+                if (val != null) {
+                    final String[] scripts =
+                            Converters.standardConverter().convert(val).to(String[].class);
+                    for (final String contents : scripts) {
+                        sources.add(parse("configuration ".concat(c.getPid()), c, contents));
+                    }
+                }
+            }
+        }
+        return new RepoInitModel(feature, sources);
+    }
+
+    private static Source parse(final String id, final Configuration cfg, final String contents) {
+        try {
+            return new Source(id, cfg, new RepoInitParserService().parse(new StringReader(contents)), null);
+        } catch (final RepoInitParsingException e) {
+            return new Source(id, cfg, Collections.emptyList(), e.getMessage());
+        }
+    }
+}
@@ -70,10 +70,23 @@ public class PackageValidator {
     private Map<String, ? extends ValidatorSettings> validatorSettings;
 
     public PackageValidator(URI artifactURI, Map<String, ? extends ValidatorSettings> validatorSettings) {
+        this(artifactURI, validatorSettings, new ValidationExecutorFactory(PackageValidator.class.getClassLoader()));
+    }
+
+    /**
+     * Create a validator using an existing factory. The factory loads the
+     * validators once and can be shared between validators running concurrently.
+     * @param artifactURI The package
+     * @param validatorSettings The validator settings
+     * @param validationExecutorFactory The factory
+     */
+    public PackageValidator(
+            URI artifactURI,
+            Map<String, ? extends ValidatorSettings> validatorSettings,
+            ValidationExecutorFactory validationExecutorFactory) {
         this.artifactURI = artifactURI;
         this.validatorSettings = validatorSettings;
-        validationExecutorFactory =
-                new ValidationExecutorFactory(this.getClass().getClassLoader());
+        this.validationExecutorFactory = validationExecutorFactory;
         messages = new LinkedList<>();
     }
 
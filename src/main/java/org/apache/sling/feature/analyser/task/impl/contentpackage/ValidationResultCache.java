@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task.impl.contentpackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import org.apache.jackrabbit.vault.validation.ValidationViolation;
+import org.apache.jackrabbit.vault.validation.spi.ValidationMessageSeverity;
+import org.apache.sling.feature.analyser.impl.JsonFiles;
+import org.apache.sling.feature.analyser.task.TaskFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local cache for the results of validating a content package. Results are keyed
+ * by the SHA-256 hash of the package contents, the enabled validators, the maximum
+ * report level and the version of the validation library. Each entry is a JSON file
+ * in the cache directory.
+ */
+public class ValidationResultCache {
+
+    private static final int VERSION = 1;
+
+    private static final String PROP_VERSION = "version";
+
+    private static final String PROP_RESULTS = "results";
+
+    private static final String PROP_SEVERITY = "severity";
+
+    private static final String PROP_MESSAGE = "message";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File directory;
+
+    /**
+     * A validation result as reported
+     */
+    public static final class Result {
+        private final ValidationMessageSeverity severity;
+        private final String message;
+
+        public Result(final ValidationMessageSeverity severity, final String message) {
+            this.severity = severity;
+            this.message = message;
+        }
+
+        public ValidationMessageSeverity getSeverity() {
+            return severity;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public ValidationResultCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Calculate the cache key for a package
+     * @param packageFile The package
+     * @param enabledValidators The ids of the enabled validators
+     * @param maxReportLevel The maximum report level
+     * @return The key
+     * @throws IOException If reading the package fails
+     */
+    public String getKey(
+            final File packageFile,
+            final Collection<String> enabledValidators,
+            final ValidationMessageSeverity maxReportLevel)
+            throws IOException {
+        final TaskFingerprint fingerprint = new TaskFingerprint()
+                .add(String.valueOf(VERSION))
+                .add(ValidationViolation.class.getPackage().getImplementationVersion())
+                .add(hash(packageFile));
+        final Collection<String> validators = new TreeSet<>(enabledValidators);
+        fingerprint.add(String.valueOf(validators.size()));
+        for (final String id : validators) {
+            fingerprint.add(id);
+        }
+        return fingerprint.add(maxReportLevel.name()).build();
+    }
+
+    private static String hash(final File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        try (final InputStream is = Files.newInputStream(file.toPath())) {
+            final byte[] buffer = new byte[65536];
+            int l;
+            while ((l = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, l);
+            }
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Load the results for a package
+     * @param key The key
+     * @return The results or {@code null} if there is no valid entry
+     */
+    public List<Result> load(final String key) {
+        final File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (final Reader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+                final JsonReader reader = Json.createReader(r)) {
+            final JsonObject obj = reader.readObject();
+            if (obj.getInt(PROP_VERSION, 0) != VERSION) {
+                return null;
+            }
+            final List<Result> results = new ArrayList<>();
+            for (final JsonValue value : obj.getJsonArray(PROP_RESULTS)) {
+                final JsonObject result = value.asJsonObject();
+                results.add(new Result(
+                        ValidationMessageSeverity.valueOf(result.getString(PROP_SEVERITY)),
+                        result.getString(PROP_MESSAGE)));
+            }
+            return results;
+        } catch (final IOException | RuntimeException e) {
+            logger.warn("Ignoring invalid cached validation results {} : {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the results for a package. Failures are logged but do not fail the analysis.
+     * @param key The key
+     * @param results The results
+     */
+    public void store(final String key, final List<Result> results) {
+        final File file = getFile(key);
+        final JsonArrayBuilder array = Json.createArrayBuilder();
+        for (final Result result : results) {
+            array.add(Json.createObjectBuilder()
+                    .add(PROP_SEVERITY, result.getSeverity().name())
+                    .add(PROP_MESSAGE, result.getMessage()));
+        }
+        try {
+            // packages with the same contents might be stored concurrently
+            JsonFiles.write(
+                    file,
+                    Json.createObjectBuilder()
+                            .add(PROP_VERSION, VERSION)
+                            .add(PROP_RESULTS, array)
+                            .build());
+        } catch (final IOException e) {
+            logger.warn("Unable to store validation results {} : {}", file, e.getMessage());
+        }
+    }
+
+    private File getFile(final String key) {
+        return new File(this.directory, key.concat(".json"));
+    }
+}
@@ -18,18 +18,15 @@
  */
 package org.apache.sling.feature.analyser.task.impl.repoinitconflicts;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
 
-import org.apache.sling.feature.Extension;
-import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
-import org.apache.sling.repoinit.parser.impl.ParseException;
-import org.apache.sling.repoinit.parser.impl.RepoInitParserImpl;
+import org.apache.sling.feature.analyser.task.impl.RepoInitModel;
 import org.apache.sling.repoinit.parser.operations.CreatePath;
 import org.apache.sling.repoinit.parser.operations.Operation;
 import org.apache.sling.repoinit.parser.operations.PathSegmentDefinition;
@@ -43,82 +40,112 @@ public class RepoInitConflictsValidator {
     private static final Logger LOGGER = LoggerFactory.getLogger(RepoInitConflictsValidator.class);
 
     public static ValidationReport validate(final Feature feature) {
-        ValidationReport report = new ValidationReport();
+        return validate(feature, RepoInitModel.create(feature));
+    }
 
-        final Extension repoinitExtension = feature.getExtensions().getByName(Extension.EXTENSION_NAME_REPOINIT);
+    /**
+     * Validate the create path statements of an already parsed repoinit
+     * @param feature The feature
+     * @param model The parsed repoinit of the feature
+     * @return The report
+     */
+    public static ValidationReport validate(final Feature feature, final RepoInitModel model) {
+        ValidationReport report = new ValidationReport();
 
-        if (repoinitExtension == null
-                || repoinitExtension.getText() == null
-                || repoinitExtension.getType() != ExtensionType.TEXT) {
-            return report;
+        // all create path statements end up in the same repository, regardless of their source
+        List<CreatePath> createPaths = new ArrayList<>();
+        for (RepoInitModel.Source source : model.getSources()) {
+            if (source.getError() != null) {
+                LOGGER.error(
+                        "Failed to parse repoinit statements from {}, skipping conflict validation. Error: {}",
+                        source.getId(),
+                        source.getError());
+            }
+            for (Operation op : source.getOperations()) {
+                if (op instanceof CreatePath) {
+                    createPaths.add((CreatePath) op);
+                }
+            }
         }
 
-        List<CreatePath[]> conflicts = findConflicts(repoinitExtension);
+        List<CreatePath[]> conflicts = findConflictingPairs(createPaths);
 
         report.addConflicts(feature, conflicts);
 
         return report;
     }
 
-    private static List<CreatePath[]> findConflicts(Extension repoinitExtension) {
-        try {
-            List<Operation> operations = new RepoInitParserImpl(new StringReader(repoinitExtension.getText())).parse();
+    /**
+     * Find the pairs of statements of the same depth which declare a different
+     * primary type for the same node, while agreeing on all ancestors. The statements
+     * are inserted into a trie of path segments and primary types; two statements
+     * conflict at the node where their branches first differ in the primary type only.
+     * @return The pairs, ordered by the position of the statements
+     */
+    private static List<CreatePath[]> findConflictingPairs(List<CreatePath> createPaths) {
+        TrieNode root = new TrieNode();
+        for (int i = 0; i < createPaths.size(); i++) {
+            root.insert(createPaths.get(i).getDefinitions(), i);
+        }
 
-            List<CreatePath> createPaths = operations.stream()
-                    .filter(CreatePath.class::isInstance)
-                    .map(op -> (CreatePath) op)
-                    .collect(Collectors.toList());
+        List<int[]> pairs = new ArrayList<>();
+        root.collectConflicts(pairs);
+        pairs.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
 
-            return findConflictingPairs(createPaths);
-        } catch (ParseException e) {
-            LOGGER.error(
-                    "Failed to parse repoinit statements, skipping conflict validation. Error: {}", e.getMessage(), e);
-            return Collections.emptyList();
+        List<CreatePath[]> conflicts = new ArrayList<>(pairs.size());
+        for (int[] pair : pairs) {
+            conflicts.add(new CreatePath[] {createPaths.get(pair[0]), createPaths.get(pair[1])});
         }
+        return conflicts;
     }
 
-    private static List<CreatePath[]> findConflictingPairs(List<CreatePath> createPaths) {
-        int size = createPaths.size();
-        List<CreatePath[]> conflicts = new ArrayList<>();
-        for (int i = 0; i < size; i++) {
-            for (int j = i + 1; j < size; j++) {
-                List<CreatePath[]> conflict = findConflictPair(createPaths.get(i), createPaths.get(j));
-                if (!conflict.isEmpty()) {
-                    conflicts.addAll(conflict);
-                }
+    /**
+     * A node of the path trie. Children are keyed by segment and then by primary type,
+     * each node records the statements passing through it grouped by their depth.
+     */
+    private static final class TrieNode {
+
+        private final Map<String, Map<String, TrieNode>> children = new LinkedHashMap<>();
+
+        private final Map<Integer, List<Integer>> statementsByDepth = new HashMap<>();
+
+        void insert(List<PathSegmentDefinition> definitions, int index) {
+            TrieNode node = this;
+            for (PathSegmentDefinition definition : definitions) {
+                node = node.children
+                        .computeIfAbsent(definition.getSegment(), key -> new HashMap<>())
+                        .computeIfAbsent(definition.getPrimaryType(), key -> new TrieNode());
+                node.statementsByDepth
+                        .computeIfAbsent(definitions.size(), key -> new ArrayList<>())
+                        .add(index);
             }
         }
-        return conflicts;
-    }
-
-    private static List<CreatePath[]> findConflictPair(CreatePath a, CreatePath b) {
-        List<PathSegmentDefinition> aDefs = a.getDefinitions();
-        List<PathSegmentDefinition> bDefs = b.getDefinitions();
 
-        // different depth → no conflict
-        if (aDefs.size() != bDefs.size()) {
-            return Collections.emptyList();
-        }
-        List<CreatePath[]> conflicts = new ArrayList<>();
-        for (int i = 0; i < aDefs.size(); i++) {
-            PathSegmentDefinition aSeg = aDefs.get(i);
-            PathSegmentDefinition bSeg = bDefs.get(i);
-
-            // segments diverge → stop comparing this pair
-            if (!Objects.equals(aSeg.getSegment(), bSeg.getSegment())) {
-                return Collections.emptyList();
+        void collectConflicts(List<int[]> pairs) {
+            for (Map<String, TrieNode> byType : children.values()) {
+                if (byType.size() > 1) {
+                    List<TrieNode> nodes = new ArrayList<>(byType.values());
+                    for (int i = 0; i < nodes.size(); i++) {
+                        for (int j = i + 1; j < nodes.size(); j++) {
+                            addPairs(nodes.get(i), nodes.get(j), pairs);
+                        }
+                    }
+                }
+                for (TrieNode child : byType.values()) {
+                    child.collectConflicts(pairs);
+                }
             }
+        }
 
-            // same segment but different type → conflict
-            if (!Objects.equals(aSeg.getPrimaryType(), bSeg.getPrimaryType())) {
-                CreatePath[] conflict = new CreatePath[2];
-                conflict[0] = a;
-                conflict[1] = b;
-
-                conflicts.add(conflict);
-                break;
+        private static void addPairs(TrieNode a, TrieNode b, List<int[]> pairs) {
+            for (Map.Entry<Integer, List<Integer>> entry : a.statementsByDepth.entrySet()) {
+                List<Integer> others = b.statementsByDepth.getOrDefault(entry.getKey(), Collections.emptyList());
+                for (int x : entry.getValue()) {
+                    for (int y : others) {
+                        pairs.add(x < y ? new int[] {x, y} : new int[] {y, x});
+                    }
+                }
             }
         }
-        return conflicts;
     }
 }
@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Manifest;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.osgi.framework.Constants;
+
+/**
+ * The content of a bundle: the packages containing classes and the resources.
+ * <p>
+ * For bundles stored in a file, the entry names are read from the central
+ * directory of the archive without inflating any entry. Jars listed in the
+ * {@code Bundle-ClassPath} which are stored uncompressed are read in place
+ * through their own central directory, other jars are streamed from their
+ * offset in the file. Package names use the dot notation, the default
+ * package is represented by the empty string.
+ * <p>
+ * An index is immutable. The index of a bundle is available through
+ * {@link BundleDescriptor#getContentIndex()}.
+ * @since 3.2.0
+ */
+public final class BundleContentIndex {
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+    private final Set<String> packages;
+
+    private final Set<String> resources;
+
+    private final Map<String, Set<String>> classPathPackages;
+
+    private BundleContentIndex(
+            final Set<String> packages, final Set<String> resources, final Map<String, Set<String>> classPathPackages) {
+        this.packages = Collections.unmodifiableSet(packages);
+        this.resources = Collections.unmodifiableSet(resources);
+        this.classPathPackages = Collections.unmodifiableMap(classPathPackages);
+    }
+
+    /**
+     * The packages containing classes in the bundle, excluding jars embedded
+     * through the {@code Bundle-ClassPath}
+     * @return The package names
+     */
+    public Set<String> getPackages() {
+        return this.packages;
+    }
+
+    /**
+     * The names of all entries in the bundle which are neither classes nor directories
+     * @return The resource names
+     */
+    public Set<String> getResources() {
+        return this.resources;
+    }
+
+    /**
+     * The packages containing classes for each jar of the {@code Bundle-ClassPath}
+     * found in the bundle
+     * @return A map from the jar entry name to the package names
+     */
+    public Map<String, Set<String>> getClassPathPackages() {
+        return this.classPathPackages;
+    }
+
+    /**
+     * Create the index of a bundle
+     * @param url The bundle
+     * @param manifest The manifest of the bundle, might be {@code null}
+     * @return The index
+     * @throws IOException If reading the bundle fails
+     */
+    static BundleContentIndex create(final URL url, final Manifest manifest) throws IOException {
+        if (url == null) {
+            throw new IOException("Bundle file is not available");
+        }
+        final Set<String> classPath = getClassPath(manifest);
+        final Set<String> packages = new HashSet<>();
+        final Set<String> resources = new HashSet<>();
+        final Map<String, Set<String>> classPathPackages = new LinkedHashMap<>();
+
+        final File file = getFile(url);
+        if (file != null) {
+            if (!readFile(file, classPath, packages, resources, classPathPackages)) {
+                // zip64 or otherwise unusual archive, let the jdk read it
+                packages.clear();
+                resources.clear();
+                classPathPackages.clear();
+                try (final ZipFile zip = new ZipFile(file)) {
+                    final Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        final ZipEntry entry = entries.nextElement();
+                        if (add(entry.getName(), packages, resources) && classPath.contains(entry.getName())) {
+                            try (final InputStream is = zip.getInputStream(entry)) {
+                                classPathPackages.put(entry.getName(), readNested(is));
+                            }
+                        }
+                    }
+                }
+            }
+        } else {
+            try (final ZipInputStream zis = new ZipInputStream(url.openStream())) {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) {
+                    if (add(entry.getName(), packages, resources) && classPath.contains(entry.getName())) {
+                        classPathPackages.put(entry.getName(), readNested(zis));
+                    }
+                    zis.closeEntry();
+                }
+            }
+        }
+        return new BundleContentIndex(packages, resources, classPathPackages);
+    }
+
+    /**
+     * Read a bundle file through its central directory
+     * @return {@code false} if the central directory cannot be used
+     */
+    private static boolean readFile(
+            final File file,
+            final Set<String> classPath,
+            final Set<String> packages,
+            final Set<String> resources,
+            final Map<String, Set<String>> classPathPackages)
+            throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final List<CentralDirectoryEntry> entries = readCentralDirectory(raf, 0, raf.length());
+            if (entries == null) {
+                return false;
+            }
+            for (final CentralDirectoryEntry entry : entries) {
+                if (add(entry.name, packages, resources) && classPath.contains(entry.name)) {
+                    final long start = getDataOffset(raf, 0, entry);
+                    if (start == -1) {
+                        return false;
+                    }
+                    final Set<String> nested;
+                    if (entry.method == ZipEntry.STORED) {
+                        nested = readNested(raf, start, entry.compressedSize);
+                    } else if (entry.method == ZipEntry.DEFLATED) {
+                        final Inflater inflater = new Inflater(true);
+                        try {
+                            nested = readNested(new InflaterInputStream(
+                                    new RegionInputStream(raf, start, entry.compressedSize), inflater));
+                        } finally {
+                            inflater.end();
+                        }
+                    } else {
+                        return false;
+                    }
+                    classPathPackages.put(entry.name, nested);
+                }
+            }
+            return true;
+        }
+    }
+
+    private static File getFile(final URL url) {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                final File file = new File(url.toURI());
+                return file.isFile() ? file : null;
+            } catch (final URISyntaxException | IllegalArgumentException e) {
+                // not a plain file, stream it
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> getClassPath(final Manifest manifest) {
+        final String value =
+                manifest == null ? null : manifest.getMainAttributes().getValue(Constants.BUNDLE_CLASSPATH);
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        final Set<String> result = new HashSet<>();
+        for (final String element : value.split(",")) {
+            final int pos = element.indexOf(';');
+            String path = (pos == -1 ? element : element.substring(0, pos)).trim();
+            if (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            if (!path.isEmpty() && !".".equals(path)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add an entry to the packages or resources
+     * @return {@code true} if the entry is a resource
+     */
+    private static boolean add(final String name, final Set<String> packages, final Set<String> resources) {
+        if (name.endsWith(".class")) {
+            packages.add(getPackage(name));
+            return false;
+        }
+        if (name.endsWith("/")) {
+            return false;
+        }
+        resources.add(name);
+        return true;
+    }
+
+    private static String getPackage(final String className) {
+        final int lastPos = className.lastIndexOf('/');
+        return lastPos == -1 ? "" : className.substring(0, lastPos).replace('/', '.');
+    }
+
+    /**
+     * Read a jar stored uncompressed within the bundle file
+     */
+    private static Set<String> readNested(final RandomAccessFile raf, final long start, final long length)
+            throws IOException {
+        final List<CentralDirectoryEntry> entries = readCentralDirectory(raf, start, length);
+        if (entries == null) {
+            return readNested(new RegionInputStream(raf, start, length));
+        }
+        final Set<String> packages = new HashSet<>();
+        for (final CentralDirectoryEntry entry : entries) {
+            if (entry.name.endsWith(".class")) {
+                packages.add(getPackage(entry.name));
+            }
+        }
+        return packages;
+    }
+
+    private static Set<String> readNested(final InputStream is) throws IOException {
+        final Set<String> packages = new HashSet<>();
+        // do not close the stream, it might be the enclosing archive
+        final ZipInputStream zis = new ZipInputStream(is);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            if (entry.getName().endsWith(".class")) {
+                packages.add(getPackage(entry.getName()));
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Read the central directory of an archive stored in a region of a file
+     * @param raf The file
+     * @param start The start of the archive in the file
+     * @param length The length of the archive
+     * @return The entries or {@code null} if the central directory cannot be read
+     * @throws IOException If reading the file fails
+     */
+    static List<CentralDirectoryEntry> readCentralDirectory(
+            final RandomAccessFile raf, final long start, final long length) throws IOException {
+        if (length < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            return null;
+        }
+        final byte[] tail = new byte[(int) Math.min(length, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF)];
+        raf.seek(start + length - tail.length);
+        raf.readFully(tail);
+        for (int pos = tail.length - END_OF_CENTRAL_DIRECTORY_SIZE; pos >= 0; pos--) {
+            if (getInt(tail, pos) == END_OF_CENTRAL_DIRECTORY) {
+                final int count = getShort(tail, pos + 10);
+                final long size = getInt(tail, pos + 12) & 0xFFFFFFFFL;
+                final long offset = getInt(tail, pos + 16) & 0xFFFFFFFFL;
+                if (count == 0xFFFF || offset + size > length || size > Integer.MAX_VALUE) {
+                    // zip64 or not an archive
+                    return null;
+                }
+                final byte[] data = new byte[(int) size];
+                raf.seek(start + offset);
+                raf.readFully(data);
+                return readCentralDirectory(data, count);
+            }
+        }
+        return null;
+    }
+
+    private static List<CentralDirectoryEntry> readCentralDirectory(final byte[] data, final int count) {
+        final List<CentralDirectoryEntry> entries = new ArrayList<>(count);
+        int p = 0;
+        for (int i = 0; i < count; i++) {
+            if (p + CENTRAL_DIRECTORY_HEADER_SIZE > data.length || getInt(data, p) != CENTRAL_DIRECTORY_HEADER) {
+                return null;
+            }
+            final int method = getShort(data, p + 10);
+            final long compressedSize = getInt(data, p + 20) & 0xFFFFFFFFL;
+            final int nameLength = getShort(data, p + 28);
+            final int extraLength = getShort(data, p + 30);
+            final int commentLength = getShort(data, p + 32);
+            final long localHeaderOffset = getInt(data, p + 42) & 0xFFFFFFFFL;
+            if (p + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength > data.length
+                    || compressedSize == 0xFFFFFFFFL
+                    || localHeaderOffset == 0xFFFFFFFFL) {
+                return null;
+            }
+            entries.add(new CentralDirectoryEntry(
+                    new String(data, p + CENTRAL_DIRECTORY_HEADER_SIZE, nameLength, StandardCharsets.UTF_8),
+                    method,
+                    compressedSize,
+                    localHeaderOffset));
+            p += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    /**
+     * Get the offset of the data of an entry in the file
+     * @return The offset or {@code -1} if the local header is invalid
+     */
+    private static long getDataOffset(final RandomAccessFile raf, final long start, final CentralDirectoryEntry entry)
+            throws IOException {
+        final byte[] header = new byte[LOCAL_FILE_HEADER_SIZE];
+        raf.seek(start + entry.localHeaderOffset);
+        raf.readFully(header);
+        if (getInt(header, 0) != LOCAL_FILE_HEADER) {
+            return -1;
+        }
+        return start + entry.localHeaderOffset + LOCAL_FILE_HEADER_SIZE + getShort(header, 26) + getShort(header, 28);
+    }
+
+    static final class CentralDirectoryEntry {
+
+        final String name;
+
+        final int method;
+
+        final long compressedSize;
+
+        final long localHeaderOffset;
+
+        CentralDirectoryEntry(
+                final String name, final int method, final long compressedSize, final long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    /**
+     * Stream over a region of a file, the file is not closed
+     */
+    private static final class RegionInputStream extends InputStream {
+
+        private final RandomAccessFile raf;
+
+        private final long end;
+
+        private long position;
+
+        RegionInputStream(final RandomAccessFile raf, final long start, final long length) {
+            this.raf = raf;
+            this.position = start;
+            this.end = start + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return this.read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.position >= this.end) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            this.raf.seek(this.position);
+            final int l = this.raf.read(b, off, (int) Math.min(len, this.end - this.position));
+            if (l > 0) {
+                this.position += l;
+            }
+            return l;
+        }
+    }
+
+    private static int getShort(final byte[] data, final int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8);
+    }
+
+    private static int getInt(final byte[] data, final int pos) {
+        return getShort(data, pos) | (getShort(data, pos + 2) << 16);
+    }
+}
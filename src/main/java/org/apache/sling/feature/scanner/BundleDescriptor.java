@@ -18,6 +18,8 @@
  */
 package org.apache.sling.feature.scanner;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.Set;
 import java.util.jar.Manifest;
 
@@ -31,6 +33,8 @@ import java.util.jar.Manifest;
  */
 public abstract class BundleDescriptor extends ArtifactDescriptor implements Comparable<BundleDescriptor> {
 
+    private volatile SoftReference<BundleContentIndex> contentIndex;
+
     /**
      * Constructor for a new descriptor
      * @param name The name
@@ -59,6 +63,25 @@ public abstract class BundleDescriptor extends ArtifactDescriptor implements Com
     @Override
     public abstract Manifest getManifest();
 
+    /**
+     * Return the index of the bundle content. The index is created on first
+     * access by reading the {@link #getArtifactFile() artifact file}. It is only
+     * softly referenced by the descriptor and created again once the garbage
+     * collector reclaimed it.
+     * @return The index
+     * @throws IOException If the artifact file is not available or cannot be read
+     * @since 3.2.0
+     */
+    public BundleContentIndex getContentIndex() throws IOException {
+        final SoftReference<BundleContentIndex> ref = this.contentIndex;
+        BundleContentIndex result = ref == null ? null : ref.get();
+        if (result == null) {
+            result = BundleContentIndex.create(this.getArtifactFile(), this.getManifest());
+            this.contentIndex = new SoftReference<>(result);
+        }
+        return result;
+    }
+
     /**
      * Is the bundle exporting a package?
      * @param packageName Package name
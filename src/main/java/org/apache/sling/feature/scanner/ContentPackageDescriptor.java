@@ -29,6 +29,14 @@ import org.apache.sling.feature.Configuration;
  */
 public abstract class ContentPackageDescriptor extends ArtifactDescriptor {
 
+    private static final String PROPERTY_GROUP = "group";
+
+    private static final String PROPERTY_NAME = "name";
+
+    private static final String PROPERTY_VERSION = "version";
+
+    private static final String PROPERTY_DEPENDENCIES = "dependencies";
+
     /**
      * Constructor for the descriptor
      * @param name The name
@@ -90,6 +98,48 @@ public abstract class ContentPackageDescriptor extends ArtifactDescriptor {
      */
     public abstract Properties getPackageProperties();
 
+    /**
+     * Get the group of the package as defined in the package properties
+     * @return The group or {@code null}
+     * @since 3.2.0
+     */
+    public String getPackageGroup() {
+        final Properties props = this.getPackageProperties();
+        return props == null ? null : props.getProperty(PROPERTY_GROUP);
+    }
+
+    /**
+     * Get the name of the package as defined in the package properties
+     * @return The name or {@code null}
+     * @since 3.2.0
+     */
+    public String getPackageName() {
+        final Properties props = this.getPackageProperties();
+        return props == null ? null : props.getProperty(PROPERTY_NAME);
+    }
+
+    /**
+     * Get the version of the package as defined in the package properties
+     * @return The version or {@code null}
+     * @since 3.2.0
+     */
+    public String getPackageVersion() {
+        final Properties props = this.getPackageProperties();
+        return props == null ? null : props.getProperty(PROPERTY_VERSION);
+    }
+
+    /**
+     * Get the dependencies of the package as defined in the package properties.
+     * The value is a comma separated list of dependencies, each in the format
+     * {@code group:name[:versionRange]}.
+     * @return The dependencies or {@code null}
+     * @since 3.2.0
+     */
+    public String getPackageDependencies() {
+        final Properties props = this.getPackageProperties();
+        return props == null ? null : props.getProperty(PROPERTY_DEPENDENCIES);
+    }
+
     @Override
     public String toString() {
         return "ContentPackage [" + getName() + "]";
@@ -18,6 +18,11 @@
  */
 package org.apache.sling.feature.scanner;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
 import org.apache.sling.feature.Feature;
 
 /**
@@ -32,6 +37,10 @@ public abstract class FeatureDescriptor extends ContainerDescriptor {
 
     private final Feature feature;
 
+    private volatile FeatureIndex index;
+
+    private final Map<Class<?>, Optional<?>> sharedValues = new ConcurrentHashMap<>();
+
     /**
      * Constructor for a feature descriptor
      * @param f The feature
@@ -55,4 +64,44 @@ public abstract class FeatureDescriptor extends ContainerDescriptor {
     public Feature getFeature() {
         return feature;
     }
+
+    /**
+     * Return the index over the bundles of this descriptor. The index of a locked
+     * descriptor is created on first access and then shared. For a descriptor which
+     * is not locked yet, a new index is created on each call.
+     * @return The index
+     * @since 3.2.0
+     */
+    public FeatureIndex getIndex() {
+        if (!this.isLocked()) {
+            return new FeatureIndex(this.getBundleDescriptors());
+        }
+        FeatureIndex result = this.index;
+        if (result == null) {
+            synchronized (this) {
+                result = this.index;
+                if (result == null) {
+                    result = new FeatureIndex(this.getBundleDescriptors());
+                    this.index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get a value derived from the feature and shared by everyone using this
+     * descriptor, for example a model which is expensive to create. The value
+     * is created with the factory on first access and kept with the descriptor.
+     * @param type The type of the value, used as the key
+     * @param factory The factory creating the value, might return {@code null}
+     * @param <T> The type of the value
+     * @return The value or {@code null}
+     * @since 3.2.0
+     */
+    public <T> T getSharedValue(final Class<T> type, final Supplier<T> factory) {
+        return type.cast(this.sharedValues
+                .computeIfAbsent(type, key -> Optional.ofNullable(factory.get()))
+                .orElse(null));
+    }
 }
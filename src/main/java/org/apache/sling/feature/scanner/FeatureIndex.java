@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.osgi.framework.Version;
+import org.osgi.framework.VersionRange;
+
+/**
+ * Index over the bundles of a feature descriptor.
+ * <p>
+ * Each part of the index is computed on first access. The lists in the index
+ * keep the iteration order of {@link ContainerDescriptor#getBundleDescriptors()}.
+ * An index is immutable, thread safe and reflects the bundles at the time it is
+ * created; concurrent first accesses might compute a part more than once. The
+ * index of a locked descriptor is created once and shared, see
+ * {@link FeatureDescriptor#getIndex()}.
+ * @since 3.2.0
+ */
+public final class FeatureIndex {
+
+    private final List<BundleDescriptor> bundles;
+
+    private volatile SortedMap<Integer, List<BundleDescriptor>> bundlesByStartOrder;
+
+    private volatile Map<String, List<PackageImport>> packageImports;
+
+    private volatile SortedMap<String, List<BundleDescriptor>> bundlesBySymbolicName;
+
+    /**
+     * A package import of a bundle with its parsed version range
+     */
+    public static final class PackageImport {
+
+        private final BundleDescriptor bundle;
+
+        private final VersionRange range;
+
+        private final boolean optional;
+
+        PackageImport(final BundleDescriptor bundle, final PackageInfo info) {
+            this.bundle = bundle;
+            this.range = info.getPackageVersionRange();
+            this.optional = info.isOptional();
+        }
+
+        /**
+         * The importing bundle
+         * @return The bundle
+         */
+        public BundleDescriptor getBundle() {
+            return this.bundle;
+        }
+
+        /**
+         * The version range of the import
+         * @return The range or {@code null} if the import has no version
+         */
+        public VersionRange getVersionRange() {
+            return this.range;
+        }
+
+        /**
+         * Whether the import is optional
+         * @return {@code true} if optional
+         */
+        public boolean isOptional() {
+            return this.optional;
+        }
+
+        /**
+         * Whether the import accepts a version of the package
+         * @param version The version
+         * @return {@code true} if the import has no version range or the range includes the version
+         */
+        public boolean includes(final Version version) {
+            return this.range == null || this.range.includes(version);
+        }
+    }
+
+    FeatureIndex(final Collection<BundleDescriptor> bundles) {
+        this.bundles = new ArrayList<>(bundles);
+    }
+
+    private static <K, V, M extends Map<K, List<V>>> M freeze(final M map) {
+        for (final Map.Entry<K, List<V>> entry : map.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return map;
+    }
+
+    /**
+     * The bundles by start order, sorted by start order
+     * @return An unmodifiable map
+     */
+    public SortedMap<Integer, List<BundleDescriptor>> getBundlesByStartOrder() {
+        SortedMap<Integer, List<BundleDescriptor>> result = this.bundlesByStartOrder;
+        if (result == null) {
+            final SortedMap<Integer, List<BundleDescriptor>> map = new TreeMap<>();
+            for (final BundleDescriptor bd : this.bundles) {
+                map.computeIfAbsent(bd.getArtifact().getStartOrder(), key -> new ArrayList<>())
+                        .add(bd);
+            }
+            result = Collections.unmodifiableSortedMap(freeze(map));
+            this.bundlesByStartOrder = result;
+        }
+        return result;
+    }
+
+    /**
+     * The imports of a package, regardless of the version range. The imports of
+     * a bundle are in the order of {@link BundleDescriptor#getImportedPackages()}.
+     * @param packageName The package name
+     * @return An unmodifiable list of imports, might be empty
+     * @throws IllegalArgumentException If the version range of an import is not well formed
+     */
+    public List<PackageImport> getPackageImports(final String packageName) {
+        Map<String, List<PackageImport>> result = this.packageImports;
+        if (result == null) {
+            final Map<String, List<PackageImport>> map = new HashMap<>();
+            for (final BundleDescriptor bd : this.bundles) {
+                for (final PackageInfo pck : bd.getImportedPackages()) {
+                    map.computeIfAbsent(pck.getName(), key -> new ArrayList<>()).add(new PackageImport(bd, pck));
+                }
+            }
+            result = freeze(map);
+            this.packageImports = result;
+        }
+        return result.getOrDefault(packageName, Collections.emptyList());
+    }
+
+    /**
+     * The bundles by symbolic name, sorted by symbolic name
+     * @return An unmodifiable map
+     */
+    public SortedMap<String, List<BundleDescriptor>> getBundlesBySymbolicName() {
+        SortedMap<String, List<BundleDescriptor>> result = this.bundlesBySymbolicName;
+        if (result == null) {
+            final SortedMap<String, List<BundleDescriptor>> map = new TreeMap<>();
+            for (final BundleDescriptor bd : this.bundles) {
+                map.computeIfAbsent(bd.getBundleSymbolicName(), key -> new ArrayList<>())
+                        .add(bd);
+            }
+            result = Collections.unmodifiableSortedMap(freeze(map));
+            this.bundlesBySymbolicName = result;
+        }
+        return result;
+    }
+}
@@ -19,6 +19,8 @@
 package org.apache.sling.feature.scanner;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +36,7 @@ import org.apache.felix.utils.manifest.Parser;
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
 import org.apache.sling.feature.Bundles;
+import org.apache.sling.feature.ExecutionEnvironmentExtension;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.analyser.extensions.AnalyserMetaDataExtension;
@@ -42,6 +45,8 @@ import org.apache.sling.feature.builder.ArtifactProvider;
 import org.apache.sling.feature.impl.felix.utils.resource.ResourceBuilder;
 import org.apache.sling.feature.scanner.impl.BundleDescriptorImpl;
 import org.apache.sling.feature.scanner.impl.FeatureDescriptorImpl;
+import org.apache.sling.feature.scanner.impl.FeatureDescriptorSnapshot;
+import org.apache.sling.feature.scanner.impl.FlightRecorderEvents;
 import org.apache.sling.feature.scanner.impl.SystemBundleDescriptor;
 import org.apache.sling.feature.scanner.spi.ExtensionScanner;
 import org.apache.sling.feature.scanner.spi.FrameworkScanner;
@@ -130,8 +135,8 @@ public class Scanner {
         return this.doScan(bundle, bundle.getStartOrder());
     }
 
-    private BundleDescriptor doScan(final Artifact bundle, final int startLevel) throws IOException {
-        final String key = bundle.getId()
+    private static String getCacheKey(final Artifact bundle, final int startLevel) {
+        return bundle.getId()
                 .toMvnId()
                 .concat(":")
                 .concat(String.valueOf(startLevel))
@@ -139,6 +144,12 @@ public class Scanner {
                 .concat(Stream.of(bundle.getFeatureOrigins())
                         .map(ArtifactId::toMvnId)
                         .collect(Collectors.joining(",")));
+    }
+
+    private BundleDescriptor doScan(final Artifact bundle, final int startLevel) throws IOException {
+        final String key = getCacheKey(bundle, startLevel);
+        final FlightRecorderEvents.Event event =
+                FlightRecorderEvents.BUNDLE_SCAN.begin().setArtifactId(bundle.getId());
         BundleDescriptor desc = (BundleDescriptor) this.cache.get(key);
         if (desc == null) {
             final URL file = artifactProvider.provide(bundle.getId());
@@ -148,7 +159,13 @@ public class Scanner {
 
             desc = new BundleDescriptorImpl(bundle, file);
             this.cache.put(key, desc);
+            if (event.isRecording()) {
+                event.setBytes(FlightRecorderEvents.getSize(file));
+            }
+        } else {
+            event.setCacheHit(true);
         }
+        event.commit();
         return desc;
     }
 
@@ -222,8 +239,10 @@ public class Scanner {
         FeatureDescriptorImpl desc = (FeatureDescriptorImpl) this.cache.get(key);
         if (desc == null) {
             desc = new FeatureDescriptorImpl(feature);
+            // the extension is parsed once and shared through the descriptor
+            final AnalyserMetaDataExtension metadata = AnalyserMetaDataExtension.getAnalyserMetaDataExtension(desc);
 
-            populateCache(feature);
+            populateCache(feature, metadata);
             getBundleInfos(feature.getBundles(), desc);
             scanExtensions(feature, desc);
 
@@ -236,30 +255,82 @@ public class Scanner {
         return desc;
     }
 
+    /**
+     * Write a snapshot of a scanned feature. The snapshot contains the bundles,
+     * the content packages and other artifacts together with their packages and
+     * capabilities. If the framework of the feature has been scanned with this
+     * scanner, the framework descriptor is part of the snapshot as well.
+     * The snapshot can be loaded with {@link #loadSnapshot(Feature, Reader)}.
+     *
+     * @param descriptor The feature descriptor as returned by {@link #scan(Feature)}
+     * @param writer The writer
+     * @throws IOException If writing fails
+     * @throws IllegalArgumentException If the descriptor is not locked
+     * @since 3.2.0
+     */
+    public void writeSnapshot(final FeatureDescriptor descriptor, final Writer writer) throws IOException {
+        final Feature feature = descriptor.getFeature();
+        String frameworkKey = null;
+        final ExecutionEnvironmentExtension ext =
+                ExecutionEnvironmentExtension.getExecutionEnvironmentExtension(feature);
+        if (ext != null && ext.getFramework() != null) {
+            frameworkKey =
+                    SystemBundleDescriptor.createCacheKey(ext.getFramework().getId(), feature.getFrameworkProperties());
+        }
+        final BundleDescriptor framework =
+                frameworkKey == null ? null : (BundleDescriptor) this.cache.get(frameworkKey);
+        FeatureDescriptorSnapshot.write(descriptor, frameworkKey, framework, writer);
+    }
+
+    /**
+     * Load a snapshot written with {@link #writeSnapshot(FeatureDescriptor, Writer)}.
+     * The loaded descriptors are added to the cache of this scanner, subsequent
+     * calls of {@link #scan(Feature)} for the feature return the loaded descriptor.
+     * Files of the artifacts are resolved through the artifact provider on first
+     * access, artifacts embedded in content packages have no file.
+     *
+     * @param feature The feature the snapshot was written for
+     * @param reader The reader
+     * @return The feature descriptor
+     * @throws IOException If the snapshot is invalid or has been written for a different feature
+     *   or for different bundles or artifacts of the feature
+     * @since 3.2.0
+     */
+    public FeatureDescriptor loadSnapshot(final Feature feature, final Reader reader) throws IOException {
+        final FeatureDescriptorSnapshot.Snapshot snapshot =
+                FeatureDescriptorSnapshot.read(reader, feature, artifactProvider);
+        for (final BundleDescriptor bd : snapshot.getFeatureDescriptor().getBundleDescriptors()) {
+            final Artifact bundle = bd.getArtifact();
+            this.cache.putIfAbsent(getCacheKey(bundle, bundle.getStartOrder()), bd);
+        }
+        if (snapshot.getFrameworkDescriptor() != null) {
+            this.cache.putIfAbsent(snapshot.getFrameworkCacheKey(), snapshot.getFrameworkDescriptor());
+        }
+        this.cache.put(feature.getId().toMvnId(), snapshot.getFeatureDescriptor());
+        return snapshot.getFeatureDescriptor();
+    }
+
     /**
      * Populate the scanner cache from the feature extension (if available)
      * @param feature The feature
+     * @param extension The parsed extension of the feature or {@code null}
      * @throws IOException If extracting the data fails
      */
-    private void populateCache(Feature feature) throws IOException {
-        AnalyserMetaDataExtension extension = AnalyserMetaDataExtension.getAnalyserMetaDataExtension(feature);
-
+    private void populateCache(Feature feature, AnalyserMetaDataExtension extension) throws IOException {
         if (extension != null) {
             for (Artifact bundle : feature.getBundles()) {
                 ArtifactId id = bundle.getId();
-                final String key = id.toMvnId()
-                        .concat(":")
-                        .concat(String.valueOf(bundle.getStartOrder()))
-                        .concat(":")
-                        .concat(Stream.of(bundle.getFeatureOrigins())
-                                .map(ArtifactId::toMvnId)
-                                .collect(Collectors.joining(",")));
+                final String key = getCacheKey(bundle, bundle.getStartOrder());
                 if (this.cache.get(key) == null) {
-                    Map<String, String> headers = extension.getManifest(id);
+                    // the compact encoding contains the already parsed manifest
+                    BundleDescriptor desc = extension.getBundleDescriptor(bundle, artifactProvider);
+                    Map<String, String> headers = desc == null ? extension.getManifest(id) : null;
                     if (headers != null) {
                         Manifest manifest = new Manifest();
                         headers.forEach(manifest.getMainAttributes()::putValue);
-                        BundleDescriptor desc = new BundleDescriptorImpl(bundle, artifactProvider, manifest);
+                        desc = new BundleDescriptorImpl(bundle, artifactProvider, manifest);
+                    }
+                    if (desc != null) {
                         this.cache.put(key, desc);
                     }
                 }
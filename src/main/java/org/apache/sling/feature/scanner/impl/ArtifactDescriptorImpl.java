@@ -22,18 +22,26 @@ import java.net.URL;
 import java.util.jar.Manifest;
 
 import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.builder.ArtifactProvider;
 import org.apache.sling.feature.scanner.ArtifactDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Information about an artifact.
  */
 public class ArtifactDescriptorImpl extends ArtifactDescriptor {
 
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactDescriptorImpl.class);
+
+    /** The provider to use if no file is given up-front */
+    private final ArtifactProvider artifactProvider;
+
     /** Manifest */
     private final Manifest manifest;
 
     /** The physical file for analyzing. */
-    private final URL artifactFile;
+    private URL artifactFile;
 
     /** The corresponding artifact from the feature. */
     private final Artifact artifact;
@@ -47,15 +55,42 @@ public class ArtifactDescriptorImpl extends ArtifactDescriptor {
      * @throws NullPointerException If artifact is {@code null}
      */
     public ArtifactDescriptorImpl(final String name, final Artifact artifact, final URL url, final Manifest manifest) {
+        this(name, artifact, url, null, manifest);
+    }
+
+    /**
+     * Constructor for an artifact descriptor
+     * @param name Optional name
+     * @param artifact The artifact, must be provided
+     * @param url Optional url
+     * @param provider Optional provider used to get the url on first access if no url is given
+     * @param Manifest manifest (optional)
+     * @throws NullPointerException If artifact is {@code null}
+     */
+    public ArtifactDescriptorImpl(
+            final String name,
+            final Artifact artifact,
+            final URL url,
+            final ArtifactProvider provider,
+            final Manifest manifest) {
         super(name != null ? name : artifact.getId().toMvnId());
         this.artifact = artifact;
         this.artifact.getId(); // throw NPE if artifact is null
         this.artifactFile = url;
+        this.artifactProvider = provider;
         this.manifest = manifest;
     }
 
     @Override
     public URL getArtifactFile() {
+        if (this.artifactFile == null && this.artifactProvider != null) {
+            try {
+                this.artifactFile = this.artifactProvider.provide(this.artifact.getId());
+            } catch (final Exception ex) {
+                // best effort, callers handle a missing file
+                logger.debug("Unable to get artifact file for: " + this.artifact.getId(), ex);
+            }
+        }
         return this.artifactFile;
     }
 
@@ -46,6 +46,7 @@ import org.apache.sling.feature.io.IOUtils;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.apache.sling.feature.scanner.PackageInfo;
 import org.osgi.framework.Constants;
+import org.osgi.resource.Capability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -148,6 +149,43 @@ public class BundleDescriptorImpl extends BundleDescriptor {
         this.lock();
     }
 
+    /**
+     * Constructor for a new descriptor with already parsed manifest information,
+     * see {@link CompactManifests}
+     * @param artifact The artifact
+     * @param provider The artifact provider
+     * @param manifest The manifest
+     * @param exportedPackages The exported packages
+     * @param importedPackages The imported packages
+     * @param dynamicImportedPackages The dynamically imported packages
+     * @param capabilities The capabilities
+     * @param requirements The requirements
+     * @throws IOException If the manifest has no bundle symbolic name or version
+     */
+    BundleDescriptorImpl(
+            final Artifact artifact,
+            final ArtifactProvider provider,
+            final Manifest manifest,
+            final List<PackageInfo> exportedPackages,
+            final List<PackageInfo> importedPackages,
+            final List<PackageInfo> dynamicImportedPackages,
+            final List<Capability> capabilities,
+            final List<MatchingRequirementImpl> requirements)
+            throws IOException {
+        super(artifact.getId().toMvnId());
+        this.artifact = artifact;
+        this.artifactProvider = provider;
+        this.manifest = manifest;
+
+        this.analyzeNameAndVersion();
+        this.getExportedPackages().addAll(exportedPackages);
+        this.getImportedPackages().addAll(importedPackages);
+        this.getDynamicImportedPackages().addAll(dynamicImportedPackages);
+        this.getCapabilities().addAll(capabilities);
+        this.getRequirements().addAll(requirements);
+        this.lock();
+    }
+
     /**
      * Get the bundle symbolic name.
      * @return The bundle symbolic name
@@ -189,43 +227,45 @@ public class BundleDescriptorImpl extends BundleDescriptor {
         return this.manifest;
     }
 
-    private void analyze() throws IOException {
+    private void analyzeNameAndVersion() throws IOException {
         final String name = this.manifest.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME);
-        if (name != null) {
-            final String version = this.manifest.getMainAttributes().getValue(Constants.BUNDLE_VERSION);
-            if (version == null) {
-                throw new IOException("Unable to get bundle version from artifact "
-                        + getArtifact().getId().toMvnId());
-            }
-            this.symbolicName = name;
-            this.bundleVersion = version;
-            final String newBundleName = this.getArtifact().getMetadata().get("bundle:rename-bsn");
-            if (newBundleName != null) {
-                this.symbolicName = newBundleName;
-            }
-
-            this.getExportedPackages().addAll(extractExportedPackages(this.manifest));
-            this.getImportedPackages().addAll(extractImportedPackages(this.manifest));
-            this.getDynamicImportedPackages().addAll(extractDynamicImportedPackages(this.manifest));
-            try {
-                ResourceImpl resource = ResourceBuilder.build(
-                        this.artifact.getId().toMvnUrl(),
-                        this.manifest.getMainAttributes().entrySet().stream()
-                                .collect(
-                                        Collectors.toMap(entry -> entry.getKey().toString(), entry -> entry.getValue()
-                                                .toString())));
-                this.getCapabilities().addAll(resource.getCapabilities(null));
-                this.getRequirements()
-                        .addAll(resource.getRequirements(null).stream()
-                                .map(entry -> new MatchingRequirementImpl(entry))
-                                .collect(Collectors.toList()));
-            } catch (Exception ex) {
-                throw new IOException(ex);
-            }
-        } else {
+        if (name == null) {
             throw new IOException("Unable to get bundle symbolic name from artifact "
                     + getArtifact().getId().toMvnId());
         }
+        final String version = this.manifest.getMainAttributes().getValue(Constants.BUNDLE_VERSION);
+        if (version == null) {
+            throw new IOException("Unable to get bundle version from artifact "
+                    + getArtifact().getId().toMvnId());
+        }
+        this.symbolicName = name;
+        this.bundleVersion = version;
+        final String newBundleName = this.getArtifact().getMetadata().get("bundle:rename-bsn");
+        if (newBundleName != null) {
+            this.symbolicName = newBundleName;
+        }
+    }
+
+    private void analyze() throws IOException {
+        this.analyzeNameAndVersion();
+
+        this.getExportedPackages().addAll(extractExportedPackages(this.manifest));
+        this.getImportedPackages().addAll(extractImportedPackages(this.manifest));
+        this.getDynamicImportedPackages().addAll(extractDynamicImportedPackages(this.manifest));
+        try {
+            ResourceImpl resource = ResourceBuilder.build(
+                    this.artifact.getId().toMvnUrl(),
+                    this.manifest.getMainAttributes().entrySet().stream()
+                            .collect(Collectors.toMap(entry -> entry.getKey().toString(), entry -> entry.getValue()
+                                    .toString())));
+            this.getCapabilities().addAll(resource.getCapabilities(null));
+            this.getRequirements()
+                    .addAll(resource.getRequirements(null).stream()
+                            .map(entry -> new MatchingRequirementImpl(entry))
+                            .collect(Collectors.toList()));
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
     }
 
     private static List<PackageInfo> extractPackages(
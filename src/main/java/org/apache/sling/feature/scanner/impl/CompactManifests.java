@@ -0,0 +1,526 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.felix.utils.resource.CapabilityImpl;
+import org.apache.felix.utils.resource.ResourceImpl;
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.builder.ArtifactProvider;
+import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.Descriptor;
+import org.apache.sling.feature.scanner.PackageInfo;
+import org.osgi.framework.Version;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+
+/**
+ * Compact binary encoding of bundle descriptors. Next to the manifest headers the
+ * encoding contains the already parsed packages, capabilities and requirements of
+ * each bundle, so a descriptor can be created without parsing the manifest again.
+ * <p>
+ * All strings are stored once in a dictionary and referenced by index, the whole
+ * data is deflate compressed.
+ */
+public final class CompactManifests {
+
+    private static final int MAGIC = 0x53464d43;
+
+    private static final int VERSION = 1;
+
+    /** Upper bound for counts and lengths, larger values are only found in corrupt data */
+    private static final int MAX_COUNT = 1 << 24;
+
+    private static final int TYPE_STRING = 0;
+    private static final int TYPE_VERSION = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_DOUBLE = 3;
+    private static final int TYPE_LIST = 4;
+
+    /**
+     * A capability or requirement
+     */
+    private static final class Clause {
+        final String namespace;
+        final Map<String, String> directives;
+        final Map<String, Object> attributes;
+
+        Clause(final String namespace, final Map<String, String> directives, final Map<String, Object> attributes) {
+            this.namespace = namespace;
+            this.directives = directives;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * The decoded information of a bundle
+     */
+    public static final class Entry {
+
+        private final ArtifactId artifactId;
+
+        private final Map<String, String> headers;
+
+        private final List<PackageInfo> exportedPackages;
+
+        private final List<PackageInfo> importedPackages;
+
+        private final List<PackageInfo> dynamicImportedPackages;
+
+        private final List<Clause> capabilities;
+
+        private final List<Clause> requirements;
+
+        Entry(
+                final ArtifactId artifactId,
+                final Map<String, String> headers,
+                final List<PackageInfo> exportedPackages,
+                final List<PackageInfo> importedPackages,
+                final List<PackageInfo> dynamicImportedPackages,
+                final List<Clause> capabilities,
+                final List<Clause> requirements) {
+            this.artifactId = artifactId;
+            this.headers = Collections.unmodifiableMap(headers);
+            this.exportedPackages = exportedPackages;
+            this.importedPackages = importedPackages;
+            this.dynamicImportedPackages = dynamicImportedPackages;
+            this.capabilities = capabilities;
+            this.requirements = requirements;
+        }
+
+        ArtifactId getArtifactId() {
+            return artifactId;
+        }
+
+        /**
+         * The main attributes of the manifest
+         * @return The headers
+         */
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Create a bundle descriptor without parsing the manifest
+         * @param artifact The bundle artifact
+         * @param provider The artifact provider
+         * @return The descriptor
+         * @throws IOException If the manifest has no bundle symbolic name or version
+         */
+        public BundleDescriptor createDescriptor(final Artifact artifact, final ArtifactProvider provider)
+                throws IOException {
+            final ResourceImpl resource = createResource();
+            return new BundleDescriptorImpl(
+                    artifact,
+                    provider,
+                    this.createManifest(),
+                    this.exportedPackages,
+                    this.importedPackages,
+                    this.dynamicImportedPackages,
+                    resource.getCapabilities(null),
+                    resource.getRequirements(null).stream()
+                            .map(MatchingRequirementImpl.class::cast)
+                            .collect(Collectors.toList()));
+        }
+
+        Manifest createManifest() {
+            final Manifest manifest = new Manifest();
+            this.headers.forEach(manifest.getMainAttributes()::putValue);
+            return manifest;
+        }
+
+        /**
+         * Add the packages, capabilities and requirements to a descriptor which is not locked
+         * @param descriptor The descriptor
+         */
+        void populate(final Descriptor descriptor) {
+            final ResourceImpl resource = createResource();
+            descriptor.getExportedPackages().addAll(this.exportedPackages);
+            descriptor.getImportedPackages().addAll(this.importedPackages);
+            descriptor.getDynamicImportedPackages().addAll(this.dynamicImportedPackages);
+            descriptor.getCapabilities().addAll(resource.getCapabilities(null));
+            for (final Requirement r : resource.getRequirements(null)) {
+                descriptor.getRequirements().add((MatchingRequirementImpl) r);
+            }
+        }
+
+        private ResourceImpl createResource() {
+            final ResourceImpl resource = new ResourceImpl();
+            for (final Clause c : this.capabilities) {
+                resource.addCapability(new CapabilityImpl(resource, c.namespace, c.directives, c.attributes));
+            }
+            for (final Clause r : this.requirements) {
+                resource.addRequirement(new MatchingRequirementImpl(resource, r.namespace, r.directives, r.attributes));
+            }
+            return resource;
+        }
+    }
+
+    /**
+     * Writer for the encoding
+     */
+    public static final class Writer {
+
+        private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        /** Strings of the descriptor being added, merged into the dictionary once it is added */
+        private final Map<String, Integer> pending = new LinkedHashMap<>();
+
+        private final ByteArrayOutputStream entries = new ByteArrayOutputStream();
+
+        private int count;
+
+        /**
+         * Add a bundle descriptor
+         * @param descriptor The descriptor
+         * @return {@code true} if the descriptor was added, {@code false} if it contains
+         *   attribute values which can't be encoded
+         */
+        public boolean add(final BundleDescriptor descriptor) {
+            return this.add(descriptor.getArtifact().getId(), descriptor.getManifest(), descriptor);
+        }
+
+        /**
+         * Add the manifest, packages, capabilities and requirements of any descriptor
+         * @param id The artifact id
+         * @param manifest The manifest or {@code null}
+         * @param descriptor The descriptor
+         * @return {@code true} if the descriptor was added
+         */
+        boolean add(final ArtifactId id, final Manifest manifest, final Descriptor descriptor) {
+            this.pending.clear();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final DataOutputStream out = new DataOutputStream(bytes)) {
+                writeString(out, id.toMvnId());
+
+                final Map<String, String> headers = new LinkedHashMap<>();
+                if (manifest != null) {
+                    manifest.getMainAttributes().forEach((key, value) -> headers.put(key.toString(), value.toString()));
+                }
+                writeInt(out, headers.size());
+                for (final Map.Entry<String, String> header : headers.entrySet()) {
+                    writeString(out, header.getKey());
+                    writeString(out, header.getValue());
+                }
+
+                writePackages(out, descriptor.getExportedPackages());
+                writePackages(out, descriptor.getImportedPackages());
+                writePackages(out, descriptor.getDynamicImportedPackages());
+
+                writeInt(out, descriptor.getCapabilities().size());
+                for (final Capability c : descriptor.getCapabilities()) {
+                    writeClause(out, c.getNamespace(), c.getDirectives(), c.getAttributes());
+                }
+                writeInt(out, descriptor.getRequirements().size());
+                for (final Requirement r : descriptor.getRequirements()) {
+                    writeClause(out, r.getNamespace(), r.getDirectives(), r.getAttributes());
+                }
+            } catch (final IOException | IllegalArgumentException e) {
+                this.pending.clear();
+                return false;
+            }
+            this.dictionary.putAll(this.pending);
+            this.pending.clear();
+            this.entries.write(bytes.toByteArray(), 0, bytes.size());
+            this.count++;
+            return true;
+        }
+
+        /**
+         * Whether no descriptor has been added
+         * @return {@code true} if empty
+         */
+        public boolean isEmpty() {
+            return this.count == 0;
+        }
+
+        /**
+         * Get the encoded descriptors
+         * @return The encoded data
+         * @throws IOException If encoding fails
+         */
+        public byte[] toByteArray() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                writeInt(out, this.dictionary.size());
+                for (final String value : this.dictionary.keySet()) {
+                    final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    writeInt(out, utf8.length);
+                    out.write(utf8);
+                }
+                writeInt(out, this.count);
+                this.entries.writeTo(out);
+            }
+            return bytes.toByteArray();
+        }
+
+        private void writeString(final DataOutputStream out, final String value) throws IOException {
+            Integer index = this.dictionary.get(value);
+            if (index == null) {
+                index = this.pending.get(value);
+            }
+            if (index == null) {
+                index = this.dictionary.size() + this.pending.size();
+                this.pending.put(value, index);
+            }
+            writeInt(out, index);
+        }
+
+        private void writeOptionalString(final DataOutputStream out, final String value) throws IOException {
+            if (value == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                writeString(out, value);
+            }
+        }
+
+        private void writePackages(final DataOutputStream out, final Set<PackageInfo> packages) throws IOException {
+            writeInt(out, packages.size());
+            for (final PackageInfo info : packages) {
+                writeString(out, info.getName());
+                writeOptionalString(out, info.getVersion());
+                out.writeBoolean(info.isOptional());
+                final Set<String> uses = new TreeSet<>(info.getUses());
+                writeInt(out, uses.size());
+                for (final String use : uses) {
+                    writeString(out, use);
+                }
+            }
+        }
+
+        private void writeClause(
+                final DataOutputStream out,
+                final String namespace,
+                final Map<String, String> directives,
+                final Map<String, Object> attributes)
+                throws IOException {
+            writeString(out, namespace);
+            writeInt(out, directives.size());
+            for (final Map.Entry<String, String> entry : directives.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+            writeInt(out, attributes.size());
+            for (final Map.Entry<String, Object> entry : attributes.entrySet()) {
+                writeString(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+
+        private void writeValue(final DataOutputStream out, final Object value) throws IOException {
+            if (value instanceof String) {
+                out.writeByte(TYPE_STRING);
+                writeString(out, (String) value);
+            } else if (value instanceof Version) {
+                out.writeByte(TYPE_VERSION);
+                writeString(out, value.toString());
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof List) {
+                out.writeByte(TYPE_LIST);
+                final List<?> list = (List<?>) value;
+                writeInt(out, list.size());
+                for (final Object element : list) {
+                    writeValue(out, element);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported attribute value " + value);
+            }
+        }
+    }
+
+    private CompactManifests() {}
+
+    /**
+     * Decode the bundle descriptors
+     * @param data The encoded data
+     * @return The decoded entries by artifact id
+     * @throws IOException If the data is invalid
+     */
+    public static Map<ArtifactId, Entry> read(final byte[] data) throws IOException {
+        final Map<ArtifactId, Entry> result = new LinkedHashMap<>();
+        for (final Entry entry : readEntries(data)) {
+            result.put(entry.getArtifactId(), entry);
+        }
+        return result;
+    }
+
+    /**
+     * Decode the descriptors in the order they were added
+     * @param data The encoded data
+     * @return The decoded entries
+     * @throws IOException If the data is invalid
+     */
+    static List<Entry> readEntries(final byte[] data) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid compact manifests");
+            }
+            final int version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compact manifests version " + version);
+            }
+            final String[] dictionary = new String[readInt(in)];
+            for (int i = 0; i < dictionary.length; i++) {
+                final byte[] utf8 = new byte[readInt(in)];
+                in.readFully(utf8);
+                dictionary[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            final int count = readInt(in);
+            final List<Entry> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final ArtifactId id = ArtifactId.fromMvnId(readString(in, dictionary));
+                final Map<String, String> headers = new LinkedHashMap<>();
+                final int headerCount = readInt(in);
+                for (int h = 0; h < headerCount; h++) {
+                    headers.put(readString(in, dictionary), readString(in, dictionary));
+                }
+                final List<PackageInfo> exports = readPackages(in, dictionary);
+                final List<PackageInfo> imports = readPackages(in, dictionary);
+                final List<PackageInfo> dynImports = readPackages(in, dictionary);
+                final List<Clause> caps = readClauses(in, dictionary);
+                final List<Clause> reqs = readClauses(in, dictionary);
+                result.add(new Entry(id, headers, exports, imports, dynImports, caps, reqs));
+            }
+            return result;
+        } catch (final RuntimeException e) {
+            throw new IOException("Invalid compact manifests", e);
+        }
+    }
+
+    private static String readString(final DataInputStream in, final String[] dictionary) throws IOException {
+        return dictionary[readInt(in)];
+    }
+
+    private static List<PackageInfo> readPackages(final DataInputStream in, final String[] dictionary)
+            throws IOException {
+        final int count = readInt(in);
+        final List<PackageInfo> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String name = readString(in, dictionary);
+            final String version = in.readByte() == 0 ? null : readString(in, dictionary);
+            final boolean optional = in.readBoolean();
+            final int usesCount = readInt(in);
+            final Set<String> uses = new TreeSet<>();
+            for (int u = 0; u < usesCount; u++) {
+                uses.add(readString(in, dictionary));
+            }
+            result.add(new PackageInfo(name, version, optional, uses));
+        }
+        return result;
+    }
+
+    private static List<Clause> readClauses(final DataInputStream in, final String[] dictionary) throws IOException {
+        final int count = readInt(in);
+        final List<Clause> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String namespace = readString(in, dictionary);
+            final int directiveCount = readInt(in);
+            final Map<String, String> directives = new LinkedHashMap<>();
+            for (int d = 0; d < directiveCount; d++) {
+                directives.put(readString(in, dictionary), readString(in, dictionary));
+            }
+            final int attributeCount = readInt(in);
+            final Map<String, Object> attributes = new LinkedHashMap<>();
+            for (int a = 0; a < attributeCount; a++) {
+                attributes.put(readString(in, dictionary), readValue(in, dictionary));
+            }
+            result.add(new Clause(namespace, directives, attributes));
+        }
+        return result;
+    }
+
+    private static Object readValue(final DataInputStream in, final String[] dictionary) throws IOException {
+        final int type = in.readByte();
+        switch (type) {
+            case TYPE_STRING:
+                return readString(in, dictionary);
+            case TYPE_VERSION:
+                return Version.parseVersion(readString(in, dictionary));
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_LIST:
+                final int size = readInt(in);
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, dictionary));
+                }
+                return list;
+            default:
+                throw new IOException("Invalid attribute type " + type);
+        }
+    }
+
+    /**
+     * Write a non negative int with a variable length
+     */
+    private static void writeInt(final DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read an int written with {@link #writeInt(DataOutputStream, int)}
+     * @throws IOException If the value is negative or too large for a count
+     */
+    private static int readInt(final DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0 || value > MAX_COUNT) {
+                    throw new IOException("Invalid count " + value + " in compact manifests");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Invalid compact manifests");
+    }
+}
@@ -27,14 +27,19 @@ import java.util.jar.Manifest;
 
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.builder.ArtifactProvider;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.apache.sling.feature.scanner.ContentPackageDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Information about a content package.
  */
 public class ContentPackageDescriptorImpl extends ContentPackageDescriptor {
 
+    private static final Logger logger = LoggerFactory.getLogger(ContentPackageDescriptorImpl.class);
+
     /**
      * The metadata added to bundles and configurations for the package they are in.
      */
@@ -64,7 +69,10 @@ public class ContentPackageDescriptorImpl extends ContentPackageDescriptor {
     private final Manifest manifest;
 
     /** The physical file for analyzing. */
-    private final URL artifactFile;
+    private URL artifactFile;
+
+    /** The provider to use if no file is given up-front */
+    private final ArtifactProvider artifactProvider;
 
     /** The corresponding artifact from the feature. */
     private final Artifact artifact;
@@ -93,6 +101,32 @@ public class ContentPackageDescriptorImpl extends ContentPackageDescriptor {
             final List<String> paths,
             final List<Configuration> configs,
             final Properties packageProps) {
+        this(name, artifact, url, null, manifest, bundles, paths, configs, packageProps);
+    }
+
+    /**
+     * Constructor for the descriptor
+     * @param name The name
+     * @param artifact The artifact
+     * @param url The url to the binary
+     * @param provider Optional provider used to get the url on first access if no url is given
+     * @param manifest The manifest (optional)
+     * @param bundles Mutable list of contained bundles or {@code null}
+     * @param paths Mutable list of content paths or {@code null}
+     * @param configs Mutable list of configurations or {@code null}
+     * @param properties Package properties
+     * @throws NullPointerException If artifact is {@code null}
+     */
+    public ContentPackageDescriptorImpl(
+            final String name,
+            final Artifact artifact,
+            final URL url,
+            final ArtifactProvider provider,
+            final Manifest manifest,
+            final List<BundleDescriptor> bundles,
+            final List<String> paths,
+            final List<Configuration> configs,
+            final Properties packageProps) {
         super(name);
         this.bundles = bundles == null ? new ArrayList<>() : bundles;
         this.paths = paths == null ? new ArrayList<>() : paths;
@@ -100,12 +134,21 @@ public class ContentPackageDescriptorImpl extends ContentPackageDescriptor {
         this.artifact = artifact;
         this.artifact.getId(); // throw NPE if artifact is null
         this.artifactFile = url;
+        this.artifactProvider = provider;
         this.manifest = manifest;
         this.packageProperties = packageProps;
     }
 
     @Override
     public URL getArtifactFile() {
+        if (this.artifactFile == null && this.artifactProvider != null) {
+            try {
+                this.artifactFile = this.artifactProvider.provide(this.artifact.getId());
+            } catch (final Exception ex) {
+                // best effort, callers handle a missing file
+                logger.debug("Unable to get artifact file for: " + this.artifact.getId(), ex);
+            }
+        }
         return this.artifactFile;
     }
 
@@ -159,6 +159,8 @@ public class ContentPackageScanner {
             throws IOException {
         logger.debug("Analyzing Content Package {}", archiveUrl);
 
+        final FlightRecorderEvents.Event event =
+                FlightRecorderEvents.CONTENT_PACKAGE_EXTRACT.begin().setArtifactId(packageArtifact.getId());
         final File tempDir = Files.createTempDirectory(null).toFile();
         try {
             final File toDir = new File(
@@ -173,6 +175,9 @@ public class ContentPackageScanner {
             final Properties packageProps = new Properties();
 
             try (final JarFile zipFile = IOUtils.getJarFileFromURL(archiveUrl, true, null)) {
+                if (event.isRecording()) {
+                    event.setBytes(new File(zipFile.getName()).length());
+                }
                 Enumeration<? extends ZipEntry> entries = zipFile.entries();
                 while (entries.hasMoreElements()) {
                     final ZipEntry entry = entries.nextElement();
@@ -257,6 +262,8 @@ public class ContentPackageScanner {
 
                 final ContentPackageDescriptorImpl desc = new ContentPackageDescriptorImpl(
                         name, packageArtifact, archiveUrl, manifest, bundles, contentPaths, configs, packageProps);
+                // embedded packages are recorded as separate events
+                event.commit();
                 if (parentPackage != null) {
                     desc.setParentContentPackageInfo(parentPackage, parentContentPath);
                 }
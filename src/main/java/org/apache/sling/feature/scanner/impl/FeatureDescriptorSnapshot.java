@@ -0,0 +1,488 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Configurations;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionType;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.builder.ArtifactProvider;
+import org.apache.sling.feature.io.json.ConfigurationJSONReader;
+import org.apache.sling.feature.io.json.ConfigurationJSONWriter;
+import org.apache.sling.feature.scanner.ArtifactDescriptor;
+import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.ContainerDescriptor;
+import org.apache.sling.feature.scanner.ContentPackageDescriptor;
+import org.apache.sling.feature.scanner.Descriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.PackageInfo;
+
+/**
+ * Snapshot of a scanned feature. The snapshot is a JSON document containing the
+ * bundles, the content packages and other artifacts, the packages and capabilities
+ * of the feature and optionally the framework descriptor. The manifests, packages,
+ * capabilities and requirements of all descriptors are stored in the compact
+ * encoding of {@link CompactManifests}, so loading a snapshot neither reads any
+ * artifact nor parses any manifest.
+ * <p>
+ * Files of artifacts are not part of the snapshot, they are resolved through the
+ * artifact provider on first access. Artifacts embedded in content packages have
+ * no file.
+ * <p>
+ * The snapshot records the bundles and the artifacts of the extensions of the
+ * feature, including their metadata like the start order. A snapshot is only
+ * loaded for a feature with exactly the same bundles and artifacts.
+ */
+public final class FeatureDescriptorSnapshot {
+
+    private static final int VERSION = 1;
+
+    private static final String PROP_VERSION = "version";
+
+    private static final String PROP_FEATURE = "feature";
+
+    private static final String PROP_DESCRIPTORS = "descriptors";
+
+    private static final String PROP_BUNDLES = "bundles";
+
+    private static final String PROP_ARTIFACTS = "artifacts";
+
+    private static final String PROP_FRAMEWORK = "framework";
+
+    private static final String PROP_ARTIFACT = "artifact";
+
+    private static final String PROP_ID = "id";
+
+    private static final String PROP_NAME = "name";
+
+    private static final String PROP_MANIFEST = "manifest";
+
+    private static final String PROP_EMBEDDED = "embedded";
+
+    private static final String PROP_CONTENT_PACKAGE = "content-package";
+
+    private static final String PROP_CONTENT_PATHS = "content-paths";
+
+    private static final String PROP_CONFIGURATIONS = "configurations";
+
+    private static final String PROP_PROPERTIES = "properties";
+
+    private static final String PROP_PARENT = "parent";
+
+    private static final String PROP_PARENT_PATH = "parent-path";
+
+    private static final String PROP_CACHE_KEY = "cache-key";
+
+    private static final String PROP_INPUT = "input";
+
+    private static final String PROP_EXTENSIONS = "extensions";
+
+    /**
+     * A loaded snapshot
+     */
+    public static final class Snapshot {
+
+        private final FeatureDescriptorImpl featureDescriptor;
+
+        private final String frameworkCacheKey;
+
+        private final BundleDescriptor frameworkDescriptor;
+
+        Snapshot(
+                final FeatureDescriptorImpl featureDescriptor,
+                final String frameworkCacheKey,
+                final BundleDescriptor frameworkDescriptor) {
+            this.featureDescriptor = featureDescriptor;
+            this.frameworkCacheKey = frameworkCacheKey;
+            this.frameworkDescriptor = frameworkDescriptor;
+        }
+
+        /**
+         * The locked feature descriptor
+         * @return The descriptor
+         */
+        public FeatureDescriptorImpl getFeatureDescriptor() {
+            return featureDescriptor;
+        }
+
+        /**
+         * The scanner cache key of the framework descriptor
+         * @return The key or {@code null} if the snapshot has no framework descriptor
+         */
+        public String getFrameworkCacheKey() {
+            return frameworkCacheKey;
+        }
+
+        /**
+         * The framework descriptor
+         * @return The descriptor or {@code null}
+         */
+        public BundleDescriptor getFrameworkDescriptor() {
+            return frameworkDescriptor;
+        }
+    }
+
+    private FeatureDescriptorSnapshot() {}
+
+    /**
+     * Write a snapshot
+     * @param descriptor The locked feature descriptor
+     * @param frameworkCacheKey The scanner cache key of the framework descriptor or {@code null}
+     * @param framework The framework descriptor or {@code null}
+     * @param writer The writer
+     * @throws IOException If writing fails or a descriptor contains values which can't be encoded
+     * @throws IllegalArgumentException If the descriptor is not locked
+     */
+    public static void write(
+            final FeatureDescriptor descriptor,
+            final String frameworkCacheKey,
+            final BundleDescriptor framework,
+            final Writer writer)
+            throws IOException {
+        if (!descriptor.isLocked()) {
+            throw new IllegalArgumentException("Descriptor must be locked " + descriptor.getName());
+        }
+        final CompactManifests.Writer encoded = new CompactManifests.Writer();
+        add(encoded, descriptor.getFeature().getId(), null, getFeatureData(descriptor));
+
+        // bundles of the feature first, followed by bundles only referenced by content packages
+        final List<BundleDescriptor> bundles = new ArrayList<>(descriptor.getBundleDescriptors());
+        final int featureBundles = bundles.size();
+        final Map<Descriptor, Integer> bundleIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < bundles.size(); i++) {
+            bundleIndexes.putIfAbsent(bundles.get(i), i);
+        }
+        for (final ContentPackageDescriptor cp : descriptor.getDescriptors(ContentPackageDescriptor.class)) {
+            for (final BundleDescriptor bd : cp.getBundles()) {
+                if (!bundleIndexes.containsKey(bd)) {
+                    bundleIndexes.put(bd, bundles.size());
+                    bundles.add(bd);
+                }
+            }
+        }
+        final JsonArrayBuilder bundlesJson = Json.createArrayBuilder();
+        for (int i = 0; i < bundles.size(); i++) {
+            final BundleDescriptor bd = bundles.get(i);
+            add(encoded, bd.getArtifact().getId(), bd.getManifest(), bd);
+            final JsonObjectBuilder json = Json.createObjectBuilder().add(PROP_ARTIFACT, toJson(bd.getArtifact()));
+            if (i >= featureBundles) {
+                json.add(PROP_EMBEDDED, true);
+            }
+            bundlesJson.add(json);
+        }
+
+        final List<ArtifactDescriptor> artifacts = new ArrayList<>(descriptor.getArtifactDescriptors());
+        final Map<Descriptor, Integer> artifactIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < artifacts.size(); i++) {
+            artifactIndexes.putIfAbsent(artifacts.get(i), i);
+        }
+        final JsonArrayBuilder artifactsJson = Json.createArrayBuilder();
+        for (final ArtifactDescriptor ad : artifacts) {
+            add(encoded, ad.getArtifact().getId(), ad.getManifest(), ad);
+            final JsonObjectBuilder json = Json.createObjectBuilder()
+                    .add(PROP_NAME, ad.getName())
+                    .add(PROP_ARTIFACT, toJson(ad.getArtifact()))
+                    .add(PROP_MANIFEST, ad.getManifest() != null);
+            if (ad instanceof ContentPackageDescriptor) {
+                final ContentPackageDescriptor cp = (ContentPackageDescriptor) ad;
+                json.add(PROP_CONTENT_PACKAGE, true);
+                json.add(PROP_CONTENT_PATHS, Json.createArrayBuilder(cp.getContentPaths()));
+                final JsonArrayBuilder cpBundles = Json.createArrayBuilder();
+                for (final BundleDescriptor bd : cp.getBundles()) {
+                    cpBundles.add(bundleIndexes.get(bd));
+                }
+                json.add(PROP_BUNDLES, cpBundles);
+                if (!cp.getConfigurations().isEmpty()) {
+                    final Configurations cfgs = new Configurations();
+                    cfgs.addAll(cp.getConfigurations());
+                    final StringWriter cfgWriter = new StringWriter();
+                    ConfigurationJSONWriter.write(cfgWriter, cfgs);
+                    try (final JsonReader reader = Json.createReader(new StringReader(cfgWriter.toString()))) {
+                        json.add(PROP_CONFIGURATIONS, reader.readObject());
+                    }
+                }
+                if (cp.getPackageProperties() != null) {
+                    final JsonObjectBuilder props = Json.createObjectBuilder();
+                    for (final String key : cp.getPackageProperties().stringPropertyNames()) {
+                        props.add(key, cp.getPackageProperties().getProperty(key));
+                    }
+                    json.add(PROP_PROPERTIES, props);
+                }
+                if (cp.getParentContentPackage() != null) {
+                    json.add(PROP_PARENT, artifactIndexes.get(cp.getParentContentPackage()));
+                    json.add(PROP_PARENT_PATH, cp.getParentContentPath());
+                }
+            }
+            artifactsJson.add(json);
+        }
+
+        final JsonObjectBuilder result = Json.createObjectBuilder()
+                .add(PROP_VERSION, VERSION)
+                .add(PROP_FEATURE, descriptor.getFeature().getId().toMvnId())
+                .add(PROP_INPUT, getInput(descriptor.getFeature()))
+                .add(PROP_BUNDLES, bundlesJson)
+                .add(PROP_ARTIFACTS, artifactsJson);
+        if (framework != null && frameworkCacheKey != null) {
+            add(encoded, framework.getArtifact().getId(), null, framework);
+            result.add(
+                    PROP_FRAMEWORK,
+                    Json.createObjectBuilder()
+                            .add(PROP_ID, framework.getArtifact().getId().toMvnId())
+                            .add(PROP_CACHE_KEY, frameworkCacheKey));
+        }
+        result.add(PROP_DESCRIPTORS, Base64.getEncoder().encodeToString(encoded.toByteArray()));
+
+        try (final JsonWriter jsonWriter = Json.createWriter(writer)) {
+            jsonWriter.writeObject(result.build());
+        }
+    }
+
+    /**
+     * Read a snapshot
+     * @param reader The reader
+     * @param feature The feature the snapshot was written for
+     * @param provider The artifact provider
+     * @return The snapshot
+     * @throws IOException If the snapshot is invalid or does not match the bundles and artifacts of the feature
+     */
+    public static Snapshot read(final Reader reader, final Feature feature, final ArtifactProvider provider)
+            throws IOException {
+        try (final JsonReader jsonReader = Json.createReader(reader)) {
+            final JsonObject json = jsonReader.readObject();
+            if (json.getInt(PROP_VERSION, 0) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + json.get(PROP_VERSION));
+            }
+            if (!feature.getId().toMvnId().equals(json.getString(PROP_FEATURE))) {
+                throw new IOException(
+                        "Snapshot of " + json.getString(PROP_FEATURE) + " does not match feature " + feature.getId());
+            }
+            if (!getInput(feature).equals(json.getJsonObject(PROP_INPUT))) {
+                throw new IOException(
+                        "Snapshot does not match the bundles and artifacts of feature " + feature.getId());
+            }
+            final List<CompactManifests.Entry> entries =
+                    CompactManifests.readEntries(Base64.getDecoder().decode(json.getString(PROP_DESCRIPTORS)));
+            int index = 0;
+
+            final FeatureDescriptorImpl desc = new FeatureDescriptorImpl(feature);
+            entries.get(index++).populate(desc);
+
+            final List<BundleDescriptor> bundles = new ArrayList<>();
+            for (final JsonValue value : json.getJsonArray(PROP_BUNDLES)) {
+                final JsonObject bundleJson = value.asJsonObject();
+                Artifact artifact = new Artifact(bundleJson.get(PROP_ARTIFACT));
+                final Artifact featureArtifact = feature.getBundles().getExact(artifact.getId());
+                if (featureArtifact != null
+                        && !artifact.getMetadata().containsKey(ContentPackageDescriptorImpl.METADATA_PACKAGE)) {
+                    artifact = featureArtifact;
+                }
+                final BundleDescriptor bd = entries.get(index++).createDescriptor(artifact, provider);
+                bundles.add(bd);
+                if (!bundleJson.getBoolean(PROP_EMBEDDED, false)) {
+                    desc.getBundleDescriptors().add(bd);
+                }
+            }
+
+            final JsonArray artifactsJson = json.getJsonArray(PROP_ARTIFACTS);
+            final List<ArtifactDescriptor> artifacts = new ArrayList<>();
+            for (final JsonValue value : artifactsJson) {
+                final JsonObject artifactJson = value.asJsonObject();
+                final CompactManifests.Entry entry = entries.get(index++);
+                final Artifact artifact = new Artifact(artifactJson.get(PROP_ARTIFACT));
+                final Manifest manifest = artifactJson.getBoolean(PROP_MANIFEST, false) ? entry.createManifest() : null;
+                final ArtifactDescriptor ad;
+                if (artifactJson.getBoolean(PROP_CONTENT_PACKAGE, false)) {
+                    final List<BundleDescriptor> cpBundles = new ArrayList<>();
+                    for (final JsonValue b : artifactJson.getJsonArray(PROP_BUNDLES)) {
+                        cpBundles.add(bundles.get(((JsonNumber) b).intValue()));
+                    }
+                    final List<String> paths = new ArrayList<>();
+                    for (final JsonString p :
+                            artifactJson.getJsonArray(PROP_CONTENT_PATHS).getValuesAs(JsonString.class)) {
+                        paths.add(p.getString());
+                    }
+                    final Configurations cfgs = artifactJson.containsKey(PROP_CONFIGURATIONS)
+                            ? ConfigurationJSONReader.read(
+                                    new StringReader(artifactJson
+                                            .getJsonObject(PROP_CONFIGURATIONS)
+                                            .toString()),
+                                    feature.getId().toMvnId())
+                            : new Configurations();
+                    Properties props = null;
+                    if (artifactJson.containsKey(PROP_PROPERTIES)) {
+                        props = new Properties();
+                        for (final Map.Entry<String, JsonValue> p :
+                                artifactJson.getJsonObject(PROP_PROPERTIES).entrySet()) {
+                            props.setProperty(p.getKey(), ((JsonString) p.getValue()).getString());
+                        }
+                    }
+                    ad = new ContentPackageDescriptorImpl(
+                            artifactJson.getString(PROP_NAME),
+                            artifact,
+                            null,
+                            artifactJson.containsKey(PROP_PARENT) ? null : provider,
+                            manifest,
+                            cpBundles,
+                            paths,
+                            new ArrayList<>(cfgs),
+                            props);
+                } else {
+                    ad = new ArtifactDescriptorImpl(
+                            artifactJson.getString(PROP_NAME), artifact, null, provider, manifest);
+                }
+                entry.populate(ad);
+                artifacts.add(ad);
+            }
+            // parents are set before any content package is locked
+            for (int i = 0; i < artifacts.size(); i++) {
+                final JsonObject artifactJson = artifactsJson.getJsonObject(i);
+                if (artifactJson.containsKey(PROP_PARENT)) {
+                    ((ContentPackageDescriptorImpl) artifacts.get(i))
+                            .setParentContentPackageInfo(
+                                    (ContentPackageDescriptor) artifacts.get(artifactJson.getInt(PROP_PARENT)),
+                                    artifactJson.getString(PROP_PARENT_PATH));
+                }
+            }
+            for (final ArtifactDescriptor ad : artifacts) {
+                ad.lock();
+                desc.getArtifactDescriptors().add(ad);
+            }
+            desc.lock();
+
+            String frameworkKey = null;
+            BundleDescriptor framework = null;
+            if (json.containsKey(PROP_FRAMEWORK)) {
+                final JsonObject frameworkJson = json.getJsonObject(PROP_FRAMEWORK);
+                final ArtifactId frameworkId = ArtifactId.fromMvnId(frameworkJson.getString(PROP_ID));
+                framework = new SystemBundleDescriptor(frameworkId, null, provider);
+                entries.get(index++).populate(framework);
+                framework.lock();
+                frameworkKey = frameworkJson.getString(PROP_CACHE_KEY);
+            }
+            return new Snapshot(desc, frameworkKey, framework);
+        } catch (final RuntimeException e) {
+            throw new IOException("Invalid snapshot : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the packages, capabilities and requirements of the feature itself, excluding
+     * the ones aggregated from the bundles and artifacts
+     */
+    private static Descriptor getFeatureData(final FeatureDescriptor descriptor) {
+        final Set<Object> aggregated = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<PackageInfo> exports = new HashSet<>();
+        final Set<PackageInfo> imports = new HashSet<>();
+        final Set<PackageInfo> dynImports = new HashSet<>();
+        final List<Descriptor> children = new ArrayList<>(descriptor.getBundleDescriptors());
+        children.addAll(descriptor.getArtifactDescriptors());
+        for (final Descriptor d : children) {
+            aggregated.addAll(d.getCapabilities());
+            aggregated.addAll(d.getRequirements());
+            exports.addAll(d.getExportedPackages());
+            imports.addAll(d.getImportedPackages());
+            dynImports.addAll(d.getDynamicImportedPackages());
+        }
+        final ContainerDescriptor result = new ContainerDescriptor(descriptor.getName()) {};
+        descriptor.getCapabilities().stream()
+                .filter(c -> !aggregated.contains(c))
+                .forEach(result.getCapabilities()::add);
+        descriptor.getRequirements().stream()
+                .filter(r -> !aggregated.contains(r))
+                .forEach(result.getRequirements()::add);
+        descriptor.getExportedPackages().stream()
+                .filter(p -> !exports.contains(p))
+                .forEach(result.getExportedPackages()::add);
+        descriptor.getImportedPackages().stream()
+                .filter(p -> !imports.contains(p))
+                .forEach(result.getImportedPackages()::add);
+        descriptor.getDynamicImportedPackages().stream()
+                .filter(p -> !dynImports.contains(p))
+                .forEach(result.getDynamicImportedPackages()::add);
+        return result;
+    }
+
+    private static void add(
+            final CompactManifests.Writer writer, final ArtifactId id, final Manifest manifest, final Descriptor desc)
+            throws IOException {
+        if (!writer.add(id, manifest, desc)) {
+            throw new IOException("Unable to encode descriptor " + desc.getName());
+        }
+    }
+
+    /**
+     * Get the bundles and the artifacts of the extensions of a feature with their metadata
+     */
+    private static JsonObject getInput(final Feature feature) {
+        final JsonObjectBuilder extensions = Json.createObjectBuilder();
+        for (final Extension ext : feature.getExtensions()) {
+            if (ext.getType() == ExtensionType.ARTIFACTS) {
+                extensions.add(ext.getName(), toJson(ext.getArtifacts()));
+            }
+        }
+        return Json.createObjectBuilder()
+                .add(PROP_BUNDLES, toJson(feature.getBundles()))
+                .add(PROP_EXTENSIONS, extensions)
+                .build();
+    }
+
+    private static JsonArray toJson(final Iterable<Artifact> artifacts) {
+        final JsonArrayBuilder json = Json.createArrayBuilder();
+        for (final Artifact artifact : artifacts) {
+            json.add(toJson(artifact));
+        }
+        return json.build();
+    }
+
+    private static JsonObject toJson(final Artifact artifact) {
+        final JsonObjectBuilder json =
+                Json.createObjectBuilder().add(PROP_ID, artifact.getId().toMvnId());
+        new LinkedHashMap<>(artifact.getMetadata()).forEach(json::add);
+        return json.build();
+    }
+}
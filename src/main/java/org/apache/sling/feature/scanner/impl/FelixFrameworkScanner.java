@@ -61,11 +61,17 @@ public class FelixFrameworkScanner implements FrameworkScanner {
     public BundleDescriptor scan(
             final ArtifactId framework, final Map<String, String> frameworkProps, final ArtifactProvider provider)
             throws IOException {
+        final FlightRecorderEvents.Event event =
+                FlightRecorderEvents.FRAMEWORK_SCAN.begin().setArtifactId(framework);
         final URL platformFile = provider.provide(framework);
         if (platformFile == null) {
             throw new IOException("Unable to find file for " + framework.toMvnId());
         }
+        if (event.isRecording()) {
+            event.setBytes(FlightRecorderEvents.getSize(platformFile));
+        }
         final Map<String, String> fwkProps = getFrameworkProperties(frameworkProps, platformFile);
+        event.commit();
         if (fwkProps == null) {
             return null;
         }
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.sling.feature.ArtifactId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Java Flight Recorder events emitted while scanning and analysing.
+ * <p>
+ * The module is compiled for Java 8, therefore the event types are defined
+ * at runtime through {@code jdk.jfr.EventFactory} (Java 12+). On runtimes
+ * without this API, or when no recording is active, {@link EventType#begin()}
+ * returns a shared no-op event. Whether an event type is enabled is cached and
+ * refreshed whenever a recording changes its state, so beginning an event which
+ * is not recorded neither uses reflection nor allocates.
+ * <p>
+ * All event types share the same fields: the artifact id, the task id, the
+ * number of bytes read and whether the result was served from a cache.
+ */
+public final class FlightRecorderEvents {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecorderEvents.class);
+
+    private static final String EVENT_PREFIX = "org.apache.sling.feature.analyser.";
+
+    private static final int FIELD_ARTIFACT_ID = 0;
+
+    private static final int FIELD_TASK_ID = 1;
+
+    private static final int FIELD_BYTES = 2;
+
+    private static final int FIELD_CACHE_HIT = 3;
+
+    private static final Reflection JFR = Reflection.create();
+
+    /** Scanning a bundle artifact in the {@code Scanner}. */
+    public static final EventType BUNDLE_SCAN = new EventType("BundleScan", "Bundle Scan");
+
+    /** Extracting a (possibly embedded) content package. */
+    public static final EventType CONTENT_PACKAGE_EXTRACT =
+            new EventType("ContentPackageExtract", "Content Package Extract");
+
+    /** Scanning the OSGi framework. */
+    public static final EventType FRAMEWORK_SCAN = new EventType("FrameworkScan", "Framework Scan");
+
+    /** Executing an analyser task. */
+    public static final EventType TASK_EXECUTE = new EventType("TaskExecute", "Analyser Task");
+
+    private static final EventType[] EVENT_TYPES = {BUNDLE_SCAN, CONTENT_PACKAGE_EXTRACT, FRAMEWORK_SCAN, TASK_EXECUTE};
+
+    static {
+        if (JFR != null) {
+            JFR.addListener(EVENT_TYPES);
+        }
+    }
+
+    private FlightRecorderEvents() {
+        // constants and helper only
+    }
+
+    /**
+     * Get the size of a local artifact
+     * @param url The url of the artifact
+     * @return The size in bytes or {@code -1} if the artifact is not a local file
+     */
+    public static long getSize(final URL url) {
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                return new File(url.toURI()).length();
+            } catch (final Exception ignore) {
+                // ignore
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A flight recorder event type
+     */
+    public static final class EventType {
+
+        private final Object factory;
+
+        /** The {@code jdk.jfr.EventType} of the factory */
+        private final Object type;
+
+        private volatile boolean enabled;
+
+        EventType(final String name, final String label) {
+            this.factory = JFR == null ? null : JFR.createFactory(EVENT_PREFIX.concat(name), label);
+            this.type = this.factory == null ? null : JFR.getEventType(this.factory);
+            this.refresh();
+        }
+
+        /**
+         * Update the cached enabled state from the event type
+         */
+        void refresh() {
+            this.enabled = this.type != null && JFR.isEnabled(this.type);
+        }
+
+        /**
+         * Begin a new event. If the event type is not enabled in any active
+         * recording, this only reads the cached enabled state.
+         * @return The event, never {@code null}
+         */
+        public Event begin() {
+            if (this.enabled) {
+                try {
+                    final Object event = JFR.newEvent.invoke(this.factory);
+                    JFR.begin.invoke(event);
+                    return new Event(event);
+                } catch (final Exception e) {
+                    LOGGER.debug("Unable to create flight recorder event: {}", e.getMessage());
+                }
+            }
+            return Event.NOOP;
+        }
+    }
+
+    /**
+     * A started flight recorder event
+     */
+    public static class Event {
+
+        /** Event used if flight recording is not available or disabled. */
+        static final Event NOOP = new Event(null);
+
+        private final Object event;
+
+        Event(final Object event) {
+            this.event = event;
+        }
+
+        /**
+         * Whether this event is recorded. Callers can use this to skip
+         * calculating expensive field values.
+         * @return {@code true} if the event is recorded
+         */
+        public boolean isRecording() {
+            return this.event != null;
+        }
+
+        public Event setArtifactId(final ArtifactId id) {
+            return this.set(FIELD_ARTIFACT_ID, id == null ? null : id.toMvnId());
+        }
+
+        public Event setTaskId(final String taskId) {
+            return this.set(FIELD_TASK_ID, taskId);
+        }
+
+        public Event setBytes(final long bytes) {
+            return this.set(FIELD_BYTES, bytes);
+        }
+
+        public Event setCacheHit(final boolean cacheHit) {
+            return this.set(FIELD_CACHE_HIT, cacheHit);
+        }
+
+        /**
+         * End and commit the event
+         */
+        public void commit() {
+            if (this.event != null) {
+                try {
+                    JFR.commit.invoke(this.event);
+                } catch (final Exception e) {
+                    LOGGER.debug("Unable to commit flight recorder event: {}", e.getMessage());
+                }
+            }
+        }
+
+        private Event set(final int index, final Object value) {
+            if (this.event != null) {
+                try {
+                    JFR.set.invoke(this.event, index, value);
+                } catch (final Exception e) {
+                    LOGGER.debug("Unable to set flight recorder event field: {}", e.getMessage());
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Reflective access to the {@code jdk.jfr} API
+     */
+    private static final class Reflection {
+
+        private final Method createFactory;
+
+        private final Constructor<?> annotationElement;
+
+        private final Constructor<?> valueDescriptor;
+
+        private final Class<?> nameAnnotation;
+
+        private final Class<?> labelAnnotation;
+
+        private final Class<?> categoryAnnotation;
+
+        private final Method getEventType;
+
+        private final Method isTypeEnabled;
+
+        private final Class<?> listenerClass;
+
+        private final Method addListener;
+
+        final Method newEvent;
+
+        final Method begin;
+
+        final Method set;
+
+        final Method commit;
+
+        private Reflection(final ClassLoader loader) throws Exception {
+            final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory", false, loader);
+            final Class<?> eventClass = Class.forName("jdk.jfr.Event", false, loader);
+            final Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType", false, loader);
+            final Class<?> recorderClass = Class.forName("jdk.jfr.FlightRecorder", false, loader);
+            this.listenerClass = Class.forName("jdk.jfr.FlightRecorderListener", false, loader);
+            final Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement", false, loader);
+            final Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor", false, loader);
+            this.nameAnnotation = Class.forName("jdk.jfr.Name", false, loader);
+            this.labelAnnotation = Class.forName("jdk.jfr.Label", false, loader);
+            this.categoryAnnotation = Class.forName("jdk.jfr.Category", false, loader);
+
+            this.createFactory = factoryClass.getMethod("create", List.class, List.class);
+            this.annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+            this.valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+            this.getEventType = factoryClass.getMethod("getEventType");
+            this.isTypeEnabled = eventTypeClass.getMethod("isEnabled");
+            this.addListener = recorderClass.getMethod("addListener", this.listenerClass);
+            this.newEvent = factoryClass.getMethod("newEvent");
+            this.begin = eventClass.getMethod("begin");
+            this.set = eventClass.getMethod("set", int.class, Object.class);
+            this.commit = eventClass.getMethod("commit");
+        }
+
+        static Reflection create() {
+            try {
+                return new Reflection(ClassLoader.getSystemClassLoader());
+            } catch (final Exception | LinkageError e) {
+                LOGGER.debug("Java Flight Recorder events are not available: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        Object createFactory(final String name, final String label) {
+            try {
+                final Object category = Array.newInstance(String.class, 2);
+                Array.set(category, 0, "Apache Sling");
+                Array.set(category, 1, "Feature Analyser");
+
+                final List<Object> annotations = Arrays.asList(
+                        this.annotationElement.newInstance(this.nameAnnotation, name),
+                        this.annotationElement.newInstance(this.labelAnnotation, label),
+                        this.annotationElement.newInstance(this.categoryAnnotation, category));
+
+                // the order must match the FIELD_ constants
+                final List<Object> fields = new ArrayList<>();
+                fields.add(field(String.class, "artifactId", "Artifact Id"));
+                fields.add(field(String.class, "taskId", "Task Id"));
+                fields.add(field(long.class, "bytes", "Bytes Read"));
+                fields.add(field(boolean.class, "cacheHit", "Cache Hit"));
+
+                return this.createFactory.invoke(null, annotations, fields);
+            } catch (final Exception e) {
+                LOGGER.debug("Unable to create flight recorder event type {}: {}", name, e.getMessage());
+                return null;
+            }
+        }
+
+        Object getEventType(final Object factory) {
+            try {
+                return this.getEventType.invoke(factory);
+            } catch (final Exception e) {
+                LOGGER.debug("Unable to get flight recorder event type: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        boolean isEnabled(final Object type) {
+            try {
+                return (Boolean) this.isTypeEnabled.invoke(type);
+            } catch (final Exception e) {
+                LOGGER.debug("Unable to check flight recorder event type: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Register a recorder listener refreshing the enabled state of the event types
+         * whenever a recording changes its state
+         */
+        void addListener(final EventType[] types) {
+            try {
+                final Object listener = Proxy.newProxyInstance(
+                        this.listenerClass.getClassLoader(), new Class<?>[] {this.listenerClass}, (proxy, m, args) -> {
+                            switch (m.getName()) {
+                                case "recordingStateChanged":
+                                    for (final EventType t : types) {
+                                        t.refresh();
+                                    }
+                                    return null;
+                                case "equals":
+                                    return proxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "toString":
+                                    return FlightRecorderEvents.class.getName();
+                                default:
+                                    return null;
+                            }
+                        });
+                this.addListener.invoke(null, listener);
+            } catch (final Exception e) {
+                LOGGER.debug("Unable to register flight recorder listener: {}", e.getMessage());
+            }
+        }
+
+        private Object field(final Class<?> type, final String name, final String label) throws Exception {
+            return this.valueDescriptor.newInstance(
+                    type,
+                    name,
+                    Collections.singletonList(this.annotationElement.newInstance(this.labelAnnotation, label)));
+        }
+    }
+}
@@ -25,8 +25,11 @@ import java.util.jar.Manifest;
 
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.builder.ArtifactProvider;
 import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.osgi.framework.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Bundle descriptor that describes the system bundle
@@ -35,6 +38,8 @@ import org.osgi.framework.Constants;
  */
 public final class SystemBundleDescriptor extends BundleDescriptor {
 
+    private static final Logger logger = LoggerFactory.getLogger(SystemBundleDescriptor.class);
+
     public static String createCacheKey(final ArtifactId framework, final Map<String, String> props) {
         final StringBuilder sb = new StringBuilder();
         sb.append(framework.toMvnId());
@@ -47,13 +52,25 @@ public final class SystemBundleDescriptor extends BundleDescriptor {
         return sb.toString();
     }
 
-    private final URL platformFile;
+    private URL platformFile;
     private final ArtifactId framework;
+    private final ArtifactProvider provider;
 
     public SystemBundleDescriptor(ArtifactId framework, URL platformFile) {
+        this(framework, platformFile, null);
+    }
+
+    /**
+     * Create a descriptor
+     * @param framework The framework
+     * @param platformFile The platform file or {@code null}
+     * @param provider Optional provider used to get the platform file on first access if no file is given
+     */
+    public SystemBundleDescriptor(ArtifactId framework, URL platformFile, ArtifactProvider provider) {
         super(framework.toMvnId());
         this.platformFile = platformFile;
         this.framework = framework;
+        this.provider = provider;
     }
 
     @Override
@@ -68,6 +85,14 @@ public final class SystemBundleDescriptor extends BundleDescriptor {
 
     @Override
     public URL getArtifactFile() {
+        if (platformFile == null && provider != null) {
+            try {
+                platformFile = provider.provide(framework);
+            } catch (Exception ex) {
+                // best effort, callers handle a missing file
+                logger.debug("Unable to get artifact file for: " + framework, ex);
+            }
+        }
         return platformFile;
     }
 
@@ -18,9 +18,11 @@
  */
 package org.apache.sling.feature.analyser;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.sling.feature.Artifact;
@@ -29,14 +31,25 @@ import org.apache.sling.feature.Configuration;
 import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.analyser.task.TaskFingerprint;
 import org.apache.sling.feature.scanner.Scanner;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class AnalyserTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void testConfiguration() throws Exception {
         Map<String, Map<String, String>> cfgs = new HashMap<String, Map<String, String>>();
@@ -168,4 +181,238 @@ public class AnalyserTest {
         assertEquals("mytask", result.getConfigurationWarnings().get(0).getTaskId());
         assertEquals(c, result.getConfigurationWarnings().get(0).getKey());
     }
+
+    @Test
+    public void testMetrics() throws Exception {
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+
+        final Scanner scanner = new Scanner(null);
+        final Analyser a = new Analyser(
+                scanner,
+                new AnalyserTask() {
+                    public String getId() {
+                        return "first";
+                    }
+
+                    @Override
+                    public void execute(AnalyserTaskContext ctx) throws Exception {
+                        ctx.reportError("error");
+                        ctx.reportWarning("warn");
+                    }
+                },
+                new AnalyserTask() {
+                    public String getId() {
+                        return "second";
+                    }
+
+                    @Override
+                    public void execute(AnalyserTaskContext ctx) throws Exception {
+                        // no reports
+                    }
+                });
+        final AnalyserMetrics metrics = a.analyse(f).getMetrics();
+        assertNotNull(metrics);
+
+        assertEquals(0, metrics.getBundleCount());
+        assertEquals(0, metrics.getContentPackageCount());
+        assertEquals(0, metrics.getFrameworkScanNanos());
+        assertTrue(metrics.getTotalNanos() >= metrics.getScanNanos());
+
+        assertEquals(
+                Arrays.asList("first", "second"),
+                new ArrayList<>(metrics.getTaskNanos().keySet()));
+        assertEquals(2, metrics.getTaskReportCounts().get("first").intValue());
+        assertEquals(0, metrics.getTaskReportCounts().get("second").intValue());
+    }
+
+    @Test
+    public void testReportListenerAndMaxErrors() throws Exception {
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        final List<String> executed = new ArrayList<>();
+
+        final AnalyserTask reportingTask = new AnalyserTask() {
+            public String getId() {
+                return "reporting";
+            }
+
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                executed.add(getId());
+                ctx.reportWarning("warn");
+                ctx.reportError("error");
+            }
+        };
+        final AnalyserTask otherTask = new AnalyserTask() {
+            public String getId() {
+                return "other";
+            }
+
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                executed.add(getId());
+            }
+        };
+
+        final Analyser a = new Analyser(new Scanner(null), reportingTask, otherTask);
+        final List<String> received = new ArrayList<>();
+        a.setReportListener(new AnalyserReportListener() {
+            @Override
+            public void warning(AnalyserResult.Report<?> report) {
+                received.add("warning " + report.getValue());
+            }
+
+            @Override
+            public void error(AnalyserResult.Report<?> report) {
+                received.add("error " + report.getValue());
+            }
+        });
+
+        AnalyserResult result = a.analyse(f);
+        assertFalse(result.isAborted());
+        assertEquals(Arrays.asList("reporting", "other"), executed);
+        assertEquals(Arrays.asList("warning warn", "error error"), received);
+
+        executed.clear();
+        a.setMaxErrors(1);
+        result = a.analyse(f);
+        assertTrue(result.isAborted());
+        assertEquals(Arrays.asList("reporting"), executed);
+        assertEquals(1, result.getErrors().size());
+    }
+
+    @Test
+    public void testReportStore() throws Exception {
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        final ArtifactId bundle = ArtifactId.parse("g:b:1");
+        final Configuration c = new Configuration("config.pid");
+        f.getConfigurations().add(c);
+        final List<String> executed = new ArrayList<>();
+
+        final AnalyserTask task = new AnalyserTask() {
+            public String getId() {
+                return "memoized";
+            }
+
+            @Override
+            public String getInputFingerprint(AnalyserTaskContext ctx) {
+                return new TaskFingerprint()
+                        .add(ctx.getFeature().getId().toMvnId())
+                        .build();
+            }
+
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                executed.add(getId());
+                ctx.reportArtifactError(bundle, "artifact-error");
+                ctx.reportConfigurationWarning(c, "config-warn");
+                ctx.reportWarning("global-warn");
+            }
+        };
+
+        final Map<String, Map<String, String>> cfgs = new HashMap<>();
+        final Analyser a = new Analyser(new Scanner(null), cfgs, task);
+        a.setReportStoreDirectory(tempFolder.getRoot());
+
+        final AnalyserResult first = a.analyse(f);
+        final AnalyserResult second = a.analyse(f);
+        assertEquals(1, executed.size());
+        assertEquals(first.getErrors(), second.getErrors());
+        assertEquals(first.getWarnings(), second.getWarnings());
+        assertEquals(bundle, second.getArtifactErrors().get(0).getKey());
+        assertEquals(c, second.getConfigurationWarnings().get(0).getKey());
+
+        // changed configuration, task is executed again
+        cfgs.put("memoized", Collections.singletonMap("key", "value"));
+        a.analyse(f);
+        assertEquals(2, executed.size());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        final AnalyserTask task = new AnalyserTask() {
+            public String getId() {
+                return "slow";
+            }
+
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                final long end = System.currentTimeMillis() + 10000;
+                while (!ctx.isCancelled() && System.currentTimeMillis() < end) {
+                    Thread.sleep(10);
+                }
+            }
+        };
+        final Analyser a = new Analyser(
+                new Scanner(null), Collections.singletonMap("slow", Collections.singletonMap("timeout", "1")), task);
+        final AnalyserResult result = a.analyse(f);
+        assertTrue(result.getMetrics().getTaskNanos().get("slow") < 5_000_000_000L);
+        assertEquals(1, result.getGlobalErrors().size());
+        assertEquals("slow", result.getGlobalErrors().get(0).getTaskId());
+        assertTrue(result.getGlobalErrors().get(0).getValue().contains("was cancelled"));
+    }
+
+    @Test
+    public void testTimeoutStopsUncooperativeTask() throws Exception {
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        final AnalyserTask task = new AnalyserTask() {
+            public String getId() {
+                return "stuck";
+            }
+
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                try {
+                    Thread.sleep(10000);
+                } finally {
+                    // reported after the task has been abandoned
+                    ctx.reportError("late");
+                }
+            }
+        };
+        final Analyser a = new Analyser(
+                new Scanner(null), Collections.singletonMap("stuck", Collections.singletonMap("timeout", "1")), task);
+        final AnalyserResult result = a.analyse(f);
+        assertTrue(result.getMetrics().getTaskNanos().get("stuck") < 5_000_000_000L);
+        Thread.sleep(100);
+        assertEquals(1, result.getGlobalErrors().size());
+        assertTrue(result.getGlobalErrors().get(0).getValue().contains("was stopped"));
+    }
+
+    @Test
+    public void testMaxErrorsCancelsTask() throws Exception {
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        final AnalyserTask task = new AnalyserTask() {
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                for (int i = 0; i < 100 && !ctx.isCancelled(); i++) {
+                    ctx.reportError("error " + i);
+                }
+            }
+        };
+        final Analyser a = new Analyser(new Scanner(null), task);
+        a.setMaxErrors(3);
+        assertEquals(3, a.analyse(f).getErrors().size());
+    }
+
+    @Test
+    public void testSharedValues() throws Exception {
+        final List<Object> values = new ArrayList<>();
+        final AnalyserTask task = new AnalyserTask() {
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                values.add(ctx.getSharedValue(StringBuilder.class, StringBuilder::new));
+            }
+        };
+        final Analyser a = new Analyser(new Scanner(null), task, task);
+        a.analyse(new Feature(ArtifactId.parse("g:a:1")));
+        assertEquals(2, values.size());
+        assertSame(values.get(0), values.get(1));
+
+        // a new analysis creates new values
+        a.analyse(new Feature(ArtifactId.parse("g:a:1")));
+        assertEquals(4, values.size());
+        assertNotSame(values.get(0), values.get(2));
+        assertSame(values.get(2), values.get(3));
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.task.AnalyserTask;
+import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.builder.FeatureProvider;
+import org.apache.sling.feature.scanner.Scanner;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CachingFeatureProviderTest {
+
+    private final List<ArtifactId> provided = new ArrayList<>();
+
+    private final FeatureProvider delegate = id -> {
+        provided.add(id);
+        return "missing".equals(id.getArtifactId()) ? null : new Feature(id);
+    };
+
+    @Test
+    public void testEviction() {
+        final ArtifactId a = ArtifactId.parse("g:a:1");
+        final ArtifactId b = ArtifactId.parse("g:b:1");
+        final ArtifactId c = ArtifactId.parse("g:c:1");
+
+        final CachingFeatureProvider provider = new CachingFeatureProvider(delegate, 2);
+        final Feature fa = provider.provide(a);
+        provider.provide(b);
+        // access a, so b is the least recently used feature
+        assertSame(fa, provider.provide(a));
+        provider.provide(c);
+        assertEquals(Arrays.asList(a, b, c), provided);
+
+        assertSame(fa, provider.provide(a));
+        provider.provide(b);
+        assertEquals(Arrays.asList(a, b, c, b), provided);
+    }
+
+    @Test
+    public void testMissingFeatureIsNotCached() {
+        final ArtifactId missing = ArtifactId.parse("g:missing:1");
+        final CachingFeatureProvider provider = new CachingFeatureProvider(delegate);
+        assertNull(provider.provide(missing));
+        assertNull(provider.provide(missing));
+        assertEquals(2, provided.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new CachingFeatureProvider(delegate, 0);
+    }
+
+    @Test
+    public void testSharedAcrossTasksAndAnalyses() throws Exception {
+        final ArtifactId id = ArtifactId.parse("g:other:1");
+        final AnalyserTask task = new AnalyserTask() {
+            @Override
+            public void execute(AnalyserTaskContext ctx) throws Exception {
+                ctx.getFeatureProvider().provide(id);
+            }
+        };
+        final Analyser analyser = new Analyser(new Scanner(null), task, task);
+        final Feature f = new Feature(ArtifactId.parse("g:a:1"));
+        analyser.analyse(f, null, delegate);
+        analyser.analyse(f, null, delegate);
+        assertEquals(Arrays.asList(id), provided);
+    }
+}
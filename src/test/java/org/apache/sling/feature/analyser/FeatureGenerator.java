@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionState;
+import org.apache.sling.feature.ExtensionType;
+import org.apache.sling.feature.Feature;
+
+/**
+ * Generates synthetic features of arbitrary size for scaling tests and benchmarks.
+ * <p>
+ * Bundles export packages and import packages and require capabilities of bundles
+ * with a lower or equal start level, so the generated feature resolves. Content
+ * packages contain content paths, configurations, embedded bundles, nested content
+ * packages and depend on the previous content package. All artifacts are written to
+ * a {@link TempDirArtifactProvider}. The generated feature only depends on the
+ * parameters and the seed.
+ */
+public class FeatureGenerator {
+
+    public static final String GROUP_ID = "org.apache.sling.synthetic";
+
+    private int bundles = 10;
+
+    private int startLevels = 5;
+
+    private int exportsPerBundle = 2;
+
+    private int importFanOut = 3;
+
+    private int classesPerPackage = 5;
+
+    private int contentPackages = 0;
+
+    private int contentPathsPerPackage = 100;
+
+    private int configurationsPerPackage = 10;
+
+    private int bundlesPerPackage = 1;
+
+    private int nestingDepth = 0;
+
+    private int repoinitStatements = 0;
+
+    private long seed = 1;
+
+    public FeatureGenerator bundles(final int value) {
+        this.bundles = value;
+        return this;
+    }
+
+    public FeatureGenerator startLevels(final int value) {
+        this.startLevels = Math.max(1, value);
+        return this;
+    }
+
+    public FeatureGenerator exportsPerBundle(final int value) {
+        this.exportsPerBundle = value;
+        return this;
+    }
+
+    /** The number of packages imported by each bundle */
+    public FeatureGenerator importFanOut(final int value) {
+        this.importFanOut = value;
+        return this;
+    }
+
+    public FeatureGenerator classesPerPackage(final int value) {
+        this.classesPerPackage = value;
+        return this;
+    }
+
+    public FeatureGenerator contentPackages(final int value) {
+        this.contentPackages = value;
+        return this;
+    }
+
+    public FeatureGenerator contentPathsPerPackage(final int value) {
+        this.contentPathsPerPackage = value;
+        return this;
+    }
+
+    public FeatureGenerator configurationsPerPackage(final int value) {
+        this.configurationsPerPackage = value;
+        return this;
+    }
+
+    public FeatureGenerator bundlesPerPackage(final int value) {
+        this.bundlesPerPackage = value;
+        return this;
+    }
+
+    /** The number of nested levels of content packages below each content package */
+    public FeatureGenerator nestingDepth(final int value) {
+        this.nestingDepth = value;
+        return this;
+    }
+
+    /** The number of repoinit statements in the repoinit extension */
+    public FeatureGenerator repoinitStatements(final int value) {
+        this.repoinitStatements = value;
+        return this;
+    }
+
+    public FeatureGenerator seed(final long value) {
+        this.seed = value;
+        return this;
+    }
+
+    /**
+     * Generate the feature
+     * @param provider The provider to write the artifacts to
+     * @return The feature
+     * @throws IOException If writing an artifact fails
+     */
+    public Feature generate(final TempDirArtifactProvider provider) throws IOException {
+        final Random random = new Random(this.seed);
+        final Feature feature = new Feature(new ArtifactId(GROUP_ID, "feature", "1.0.0", null, null));
+
+        final List<String> packages = new ArrayList<>();
+        for (int i = 0; i < this.bundles; i++) {
+            final Artifact bundle = new Artifact(new ArtifactId(GROUP_ID, "bundle" + i, "1.0.0", null, null));
+            bundle.setStartOrder(1 + (int) ((long) i * this.startLevels / Math.max(1, this.bundles)));
+            writeBundle(provider.newFile(bundle.getId()), bundle.getId(), i, packages, random);
+            feature.getBundles().add(bundle);
+        }
+
+        if (this.contentPackages > 0) {
+            final Extension ext = new Extension(
+                    ExtensionType.ARTIFACTS, Extension.EXTENSION_NAME_CONTENT_PACKAGES, ExtensionState.OPTIONAL);
+            for (int i = 0; i < this.contentPackages; i++) {
+                final ArtifactId id = new ArtifactId(GROUP_ID, "content" + i, "1.0.0", null, "zip");
+                try (final OutputStream os = new FileOutputStream(provider.newFile(id))) {
+                    writeContentPackage(os, "content" + i, i > 0 ? "content" + (i - 1) : null, this.nestingDepth);
+                }
+                ext.getArtifacts().add(new Artifact(id));
+            }
+            feature.getExtensions().add(ext);
+        }
+
+        if (this.repoinitStatements > 0) {
+            final Extension ext =
+                    new Extension(ExtensionType.TEXT, Extension.EXTENSION_NAME_REPOINIT, ExtensionState.OPTIONAL);
+            ext.setText(createRepoinit("ext", this.repoinitStatements));
+            feature.getExtensions().add(ext);
+
+            final Configuration cfg =
+                    new Configuration("org.apache.sling.jcr.repoinit.RepositoryInitializer~synthetic");
+            cfg.getProperties().put("scripts", new String[] {createRepoinit("cfg", this.repoinitStatements / 10 + 1)});
+            feature.getConfigurations().add(cfg);
+        }
+        return feature;
+    }
+
+    private static String createRepoinit(final String prefix, final int statements) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            final String name = prefix + i;
+            switch (i % 3) {
+                case 0:
+                    sb.append("create path /content/synthetic/")
+                            .append(prefix)
+                            .append('/')
+                            .append(i % 50)
+                            .append("/p")
+                            .append(i)
+                            .append('\n');
+                    break;
+                case 1:
+                    sb.append("create service user synthetic-").append(name).append('\n');
+                    break;
+                default:
+                    sb.append("set ACL for synthetic-")
+                            .append(prefix)
+                            .append(i - 1)
+                            .append("\n    allow jcr:read on /content/synthetic/")
+                            .append(prefix)
+                            .append("\nend\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private void writeBundle(
+            final File file, final ArtifactId id, final int index, final List<String> packages, final Random random)
+            throws IOException {
+        try (final OutputStream os = new FileOutputStream(file)) {
+            writeBundle(os, id, "org.apache.sling.synthetic.b" + index, packages, random);
+        }
+    }
+
+    private void writeBundle(
+            final OutputStream os,
+            final ArtifactId id,
+            final String symbolicName,
+            final List<String> packages,
+            final Random random)
+            throws IOException {
+        final Manifest mf = new Manifest();
+        final Attributes attrs = mf.getMainAttributes();
+        attrs.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attrs.putValue("Bundle-ManifestVersion", "2");
+        attrs.putValue("Bundle-SymbolicName", symbolicName);
+        attrs.putValue("Bundle-Version", id.getOSGiVersion().toString());
+
+        final List<String> exports = new ArrayList<>();
+        final StringBuilder exportHeader = new StringBuilder();
+        for (int i = 0; i < this.exportsPerBundle; i++) {
+            final String pck = symbolicName + ".p" + i;
+            exports.add(pck);
+            if (exportHeader.length() > 0) {
+                exportHeader.append(',');
+            }
+            exportHeader.append(pck).append(";version=\"1.").append(i).append(".0\"");
+        }
+        if (exportHeader.length() > 0) {
+            attrs.putValue("Export-Package", exportHeader.toString());
+            attrs.putValue("Provide-Capability", "synthetic.capability;synthetic.capability=\"" + symbolicName + "\"");
+        }
+
+        final StringBuilder importHeader = new StringBuilder();
+        for (int i = 0; i < this.importFanOut && !packages.isEmpty(); i++) {
+            final String pck = packages.get(random.nextInt(packages.size()));
+            if (importHeader.indexOf(pck + ";") == -1) {
+                if (importHeader.length() > 0) {
+                    importHeader.append(',');
+                }
+                importHeader.append(pck).append(";version=\"[1.0,2)\"");
+            }
+        }
+        if (importHeader.length() > 0) {
+            attrs.putValue("Import-Package", importHeader.toString());
+            final String pck = packages.get(random.nextInt(packages.size()));
+            attrs.putValue(
+                    "Require-Capability",
+                    "synthetic.capability;filter:=\"(synthetic.capability="
+                            + pck.substring(0, pck.lastIndexOf('.'))
+                            + ")\"");
+        }
+
+        try (final JarOutputStream jos = new JarOutputStream(os, mf)) {
+            jos.putNextEntry(
+                    new JarEntry("META-INF/maven/" + id.getGroupId() + "/" + id.getArtifactId() + "/pom.properties"));
+            write(
+                    jos,
+                    "groupId=" + id.getGroupId() + "\nartifactId=" + id.getArtifactId() + "\nversion=" + id.getVersion()
+                            + "\n");
+            for (final String pck : exports) {
+                for (int i = 0; i < this.classesPerPackage; i++) {
+                    jos.putNextEntry(new JarEntry(pck.replace('.', '/') + "/C" + i + ".class"));
+                    jos.write(new byte[128]);
+                }
+            }
+        }
+        packages.addAll(exports);
+    }
+
+    private void writeContentPackage(final OutputStream os, final String name, final String dependency, final int depth)
+            throws IOException {
+        final String root = "/apps/synthetic/" + name;
+        try (final ZipOutputStream zos = new ZipOutputStream(os)) {
+            zos.putNextEntry(new ZipEntry("META-INF/vault/properties.xml"));
+            write(
+                    zos,
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+                            + "<!DOCTYPE properties SYSTEM \"http://java.sun.com/dtd/properties.dtd\">\n"
+                            + "<properties>\n"
+                            + "<entry key=\"group\">synthetic</entry>\n"
+                            + "<entry key=\"name\">" + name + "</entry>\n"
+                            + "<entry key=\"version\">1.0.0</entry>\n"
+                            + (dependency == null
+                                    ? ""
+                                    : "<entry key=\"dependencies\">synthetic:" + dependency + ":[1.0,2)</entry>\n")
+                            + "</properties>\n");
+            zos.putNextEntry(new ZipEntry("META-INF/vault/filter.xml"));
+            write(
+                    zos,
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<workspaceFilter version=\"1.0\">\n"
+                            + "<filter root=\"" + root + "\"/>\n</workspaceFilter>\n");
+
+            for (int i = 0; i < this.contentPathsPerPackage; i++) {
+                zos.putNextEntry(new ZipEntry("jcr_root" + root + "/c" + (i % 100) + "/n" + i + "/.content.xml"));
+                write(
+                        zos,
+                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                                + "<jcr:root xmlns:jcr=\"http://www.jcp.org/jcr/1.0\""
+                                + " jcr:primaryType=\"nt:unstructured\"/>\n");
+            }
+            for (int i = 0; i < this.configurationsPerPackage; i++) {
+                zos.putNextEntry(new ZipEntry("jcr_root" + root + "/config/org.apache.sling.synthetic.Component~" + name
+                        + "-c" + i + ".cfg.json"));
+                write(zos, "{\"index\":" + i + ",\"name\":\"" + name + "\"}");
+            }
+            for (int i = 0; i < this.bundlesPerPackage; i++) {
+                final ArtifactId id = new ArtifactId(GROUP_ID, name + "-bundle" + i, "1.0.0", null, null);
+                zos.putNextEntry(new ZipEntry("jcr_root" + root + "/install/" + (1 + i % this.startLevels) + "/"
+                        + id.getArtifactId() + "-1.0.0.jar"));
+                writeBundle(
+                        new NonClosingOutputStream(zos),
+                        id,
+                        "org.apache.sling.synthetic." + name.replace('-', '.') + ".b" + i,
+                        new ArrayList<>(),
+                        new Random(this.seed));
+            }
+            if (depth > 0) {
+                final String subName = name + "-sub";
+                zos.putNextEntry(new ZipEntry("jcr_root/etc/packages/synthetic/" + subName + ".zip"));
+                final ByteArrayOutputStream sub = new ByteArrayOutputStream();
+                writeContentPackage(sub, subName, null, depth - 1);
+                zos.write(sub.toByteArray());
+            }
+        }
+    }
+
+    private static void write(final OutputStream os, final String text) throws IOException {
+        os.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        NonClosingOutputStream(final OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.delegate.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            this.delegate.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            // keep the enclosing stream open
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.scanner.ContentPackageDescriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.Scanner;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FeatureGeneratorTest {
+
+    @Test
+    public void testGenerate() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator()
+                    .bundles(20)
+                    .startLevels(4)
+                    .contentPackages(2)
+                    .contentPathsPerPackage(30)
+                    .configurationsPerPackage(5)
+                    .bundlesPerPackage(2)
+                    .nestingDepth(1)
+                    .repoinitStatements(30)
+                    .generate(provider);
+
+            assertEquals(20, feature.getBundles().size());
+            assertEquals(4, feature.getBundles().get(19).getStartOrder());
+            assertNotNull(feature.getExtensions().getByName(Extension.EXTENSION_NAME_REPOINIT));
+            assertEquals(1, feature.getConfigurations().size());
+
+            final FeatureDescriptor fd = new Scanner(provider).scan(feature);
+            final List<ContentPackageDescriptor> packages = fd.getArtifactDescriptors().stream()
+                    .filter(ContentPackageDescriptor.class::isInstance)
+                    .map(ContentPackageDescriptor.class::cast)
+                    .collect(Collectors.toList());
+            // two content packages, each with one nested content package
+            assertEquals(4, packages.size());
+            int configurations = 0;
+            for (final ContentPackageDescriptor cp : packages) {
+                assertEquals(2, cp.getBundles().size());
+                configurations += cp.getConfigurations().size();
+            }
+            assertEquals(20, configurations);
+        }
+    }
+
+    @Test
+    public void testGeneratedFeatureIsValid() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator()
+                    .bundles(50)
+                    .importFanOut(5)
+                    .repoinitStatements(20)
+                    .generate(provider);
+
+            final Analyser analyser = new Analyser(
+                    new Scanner(provider),
+                    new HashSet<>(Arrays.asList(
+                            "bundle-packages", "requirements-capabilities", "duplicate-symbolic-names", "repoinit")),
+                    null);
+            final AnalyserResult result = analyser.analyse(feature);
+            assertTrue(result.getErrors().toString(), result.getErrors().isEmpty());
+        }
+    }
+
+    @Test
+    public void testSameSeedGeneratesSameFeature() throws Exception {
+        try (final TempDirArtifactProvider p1 = new TempDirArtifactProvider();
+                final TempDirArtifactProvider p2 = new TempDirArtifactProvider()) {
+            final FeatureDescriptor fd1 = new Scanner(p1)
+                    .scan(new FeatureGenerator().bundles(10).seed(42).generate(p1));
+            final FeatureDescriptor fd2 = new Scanner(p2)
+                    .scan(new FeatureGenerator().bundles(10).seed(42).generate(p2));
+            assertEquals(
+                    fd1.getBundleDescriptors().stream()
+                            .map(b -> b.getManifest().getMainAttributes().getValue("Import-Package"))
+                            .collect(Collectors.toList()),
+                    fd2.getBundleDescriptors().stream()
+                            .map(b -> b.getManifest().getMainAttributes().getValue("Import-Package"))
+                            .collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.builder.ArtifactProvider;
+
+/**
+ * An artifact provider serving artifacts from a temporary directory.
+ * Closing the provider deletes the directory.
+ */
+public class TempDirArtifactProvider implements ArtifactProvider, Closeable {
+
+    private final File directory;
+
+    private final Map<ArtifactId, URL> artifacts = new ConcurrentHashMap<>();
+
+    public TempDirArtifactProvider() throws IOException {
+        this.directory = Files.createTempDirectory("analyser-artifacts").toFile();
+    }
+
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Create a new file for an artifact and register it
+     * @param id The artifact id
+     * @return The file to write the artifact to
+     */
+    public File newFile(final ArtifactId id) {
+        final File file = new File(this.directory, id.toMvnPath().replace('/', '_'));
+        try {
+            this.artifacts.put(id, file.toURI().toURL());
+        } catch (final MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    @Override
+    public URL provide(final ArtifactId id) {
+        return this.artifacts.get(id);
+    }
+
+    @Override
+    public void close() {
+        delete(this.directory);
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -33,6 +33,8 @@ import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.analyser.extensions.AnalyserMetaDataExtension.SystemBundle;
 import org.apache.sling.feature.io.json.FeatureJSONReader;
 import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.Scanner;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -77,6 +79,20 @@ public class AnalyserMetaDataExtensionTest {
         Assert.assertFalse(testAnalyserMetaDataExtension.reportError(artifact.getId()));
     }
 
+    @Test
+    public void testExtensionIsSharedThroughFeatureDescriptor() throws Exception {
+        Feature feature = FeatureJSONReader.read(
+                new InputStreamReader(getClass().getResourceAsStream("/metadata-feature.json")), null);
+        FeatureDescriptor descriptor = new Scanner(artifactId -> null).scan(feature);
+
+        AnalyserMetaDataExtension extension = AnalyserMetaDataExtension.getAnalyserMetaDataExtension(descriptor);
+        assertThat(extension).isNotNull();
+        assertThat(AnalyserMetaDataExtension.getAnalyserMetaDataExtension(descriptor))
+                .isSameAs(extension);
+        assertThat(AnalyserMetaDataExtension.getAnalyserMetaDataExtension((FeatureDescriptor) null))
+                .isNull();
+    }
+
     @Test
     public void readSystemBundleInformation() throws IOException {
         InputStream featureStream = Objects.requireNonNull(
@@ -18,6 +18,8 @@
  */
 package org.apache.sling.feature.analyser.extensions;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -26,22 +28,36 @@ import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import jakarta.json.JsonObject;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
 import org.apache.felix.utils.manifest.Clause;
 import org.apache.felix.utils.manifest.Parser;
+import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionState;
+import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
 import org.apache.sling.feature.builder.ArtifactProvider;
 import org.apache.sling.feature.builder.HandlerContext;
 import org.apache.sling.feature.io.json.FeatureJSONReader;
 import org.apache.sling.feature.io.json.FeatureJSONWriter;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -49,6 +65,9 @@ import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
 
 public class AnalyserMetaDataHandlerTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Test
     public void testMetaDataHandler() throws Exception {
 
@@ -159,6 +178,105 @@ public class AnalyserMetaDataHandlerTest {
                 .containsKeys("manifest", "artifactId", "scannerCacheKey");
     }
 
+    @Test
+    public void testManifestsAreExtractedInBundleOrder() throws IOException {
+        Feature feature = new Feature(ArtifactId.fromMvnId("g:feature:1"));
+        Map<ArtifactId, URL> jars = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            ArtifactId id = ArtifactId.fromMvnId("g:b" + i + ":1");
+            feature.getBundles().add(new Artifact(id));
+            jars.put(id, createJar(id.getArtifactId(), i % 2 == 0).toURI().toURL());
+        }
+        Extension extension =
+                new Extension(ExtensionType.JSON, AnalyserMetaDataExtension.EXTENSION_NAME, ExtensionState.REQUIRED);
+        extension.setJSON("{\"g:b.*:1\": {}}");
+        feature.getExtensions().add(extension);
+
+        HandlerContext ctx = Mockito.mock(HandlerContext.class);
+        Mockito.when(ctx.getArtifactProvider()).thenReturn(jars::get);
+        Mockito.when(ctx.getConfiguration()).thenReturn(Collections.singletonMap("parallelism", "3"));
+
+        new AnalyserMetaDataHandler().postProcess(ctx, feature, extension);
+
+        JsonObject metadata = feature.getExtensions()
+                .getByName(AnalyserMetaDataExtension.EXTENSION_NAME)
+                .getJSONStructure()
+                .asJsonObject();
+        assertThat(metadata.keySet()).containsExactly("g:b0:1", "g:b1:1", "g:b2:1", "g:b3:1", "g:b4:1");
+        for (int i = 0; i < 5; i++) {
+            assertThat(metadata.getJsonObject("g:b" + i + ":1")
+                            .getJsonObject("manifest")
+                            .getString("Bundle-SymbolicName"))
+                    .isEqualTo("b" + i);
+        }
+    }
+
+    @Test
+    public void testCompactManifests() throws IOException {
+        Feature feature = new Feature(ArtifactId.fromMvnId("g:feature:1"));
+        Map<ArtifactId, URL> jars = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            ArtifactId id = ArtifactId.fromMvnId("g:b" + i + ":1");
+            feature.getBundles().add(new Artifact(id));
+            jars.put(id, createJar(id.getArtifactId(), true).toURI().toURL());
+        }
+        Extension extension =
+                new Extension(ExtensionType.JSON, AnalyserMetaDataExtension.EXTENSION_NAME, ExtensionState.REQUIRED);
+        extension.setJSON("{\"g:b.*:1\": {\"report\": {\"warning\": false}}}");
+        feature.getExtensions().add(extension);
+
+        HandlerContext ctx = Mockito.mock(HandlerContext.class);
+        Mockito.when(ctx.getArtifactProvider()).thenReturn(jars::get);
+        Mockito.when(ctx.getConfiguration())
+                .thenReturn(Collections.singletonMap(AnalyserMetaDataHandler.CFG_COMPACT_MANIFESTS, "true"));
+
+        new AnalyserMetaDataHandler().postProcess(ctx, feature, extension);
+
+        Extension compacted = feature.getExtensions().getByName(AnalyserMetaDataExtension.EXTENSION_NAME);
+        JsonObject metadata = compacted.getJSONStructure().asJsonObject();
+        assertThat(metadata).containsKey(AnalyserMetaDataExtension.COMPACT_MANIFESTS_KEY);
+        assertThat(metadata.getJsonObject("g:b1:1")).doesNotContainKey("manifest");
+
+        AnalyserMetaDataExtension ext = AnalyserMetaDataExtension.getAnalyserMetaDataExtension(feature);
+        Artifact bundle = feature.getBundles().getExact(ArtifactId.fromMvnId("g:b1:1"));
+        assertThat(ext.getManifest(bundle.getId())).containsEntry("Bundle-SymbolicName", "b1");
+        assertThat(ext.getBundleDescriptor(bundle, jars::get).getBundleSymbolicName())
+                .isEqualTo("b1");
+        assertThat(ext.reportWarning(bundle.getId())).isFalse();
+
+        // processing again without the compact encoding restores the manifests without reading the bundles
+        Mockito.when(ctx.getArtifactProvider()).thenReturn(id -> null);
+        Mockito.when(ctx.getConfiguration()).thenReturn(Collections.emptyMap());
+        new AnalyserMetaDataHandler().postProcess(ctx, feature, compacted);
+
+        metadata = feature.getExtensions()
+                .getByName(AnalyserMetaDataExtension.EXTENSION_NAME)
+                .getJSONStructure()
+                .asJsonObject();
+        assertThat(metadata).doesNotContainKey(AnalyserMetaDataExtension.COMPACT_MANIFESTS_KEY);
+        assertThat(metadata.getJsonObject("g:b2:1").getJsonObject("manifest").getString("Bundle-SymbolicName"))
+                .isEqualTo("b2");
+    }
+
+    private File createJar(String symbolicName, boolean manifestFirst) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Bundle-SymbolicName", symbolicName);
+        manifest.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        manifest.getMainAttributes().putValue("Bundle-Version", "1.0.0");
+        File file = tempFolder.newFile(symbolicName + ".jar");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file))) {
+            if (!manifestFirst) {
+                // the manifest can only be found by reading the whole jar
+                zos.putNextEntry(new ZipEntry("a/A.class"));
+                zos.write(new byte[10]);
+            }
+            zos.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+            manifest.write(zos);
+        }
+        return file;
+    }
+
     private Feature postProcessFeature(String featureLocation) throws IOException {
         URL url = getClass().getResource(featureLocation);
 
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.extensions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WildcardMatcherTest {
+
+    @Test
+    public void testFirstMatch() {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("org.foo:(bar|baz):.*", "first");
+        entries.put("org.foo:.*", "second");
+        entries.put("org.foo:b.*:1", "third");
+        entries.put("(org)\\.(x):.*", "fourth");
+        final WildcardMatcher<String> matcher = new WildcardMatcher<>(entries);
+
+        assertThat(matcher.findFirst("org.foo:bar:1")).isEqualTo("first");
+        assertThat(matcher.findFirst("org.foo:bam:1")).isEqualTo("second");
+        assertThat(matcher.findFirst("org.x:bar:1")).isEqualTo("fourth");
+        assertThat(matcher.findFirst("org.y:bar:1")).isNull();
+        // the whole value must match
+        assertThat(matcher.findFirst("a.org.x:bar:1")).isNull();
+    }
+
+    @Test
+    public void testBackReference() {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("org.foo:.*:2", "first");
+        entries.put("(org.foo):\\1.*", "second");
+        final WildcardMatcher<String> matcher = new WildcardMatcher<>(entries);
+
+        assertThat(matcher.findFirst("org.foo:org.foo.bar:1")).isEqualTo("second");
+        assertThat(matcher.findFirst("org.foo:org.foo.bar:2")).isEqualTo("first");
+        assertThat(matcher.findFirst("org.foo:bar:1")).isNull();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(new WildcardMatcher<String>(Collections.emptyMap()).findFirst("org.foo:bar:1"))
+                .isNull();
+    }
+}
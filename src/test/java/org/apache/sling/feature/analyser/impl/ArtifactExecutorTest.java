@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+public class ArtifactExecutorTest {
+
+    private static List<Integer> inputs() {
+        final List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(i);
+        }
+        return inputs;
+    }
+
+    @Test
+    public void testResultsInInputOrder() throws Exception {
+        for (final ArtifactExecutor.Mode mode : ArtifactExecutor.Mode.values()) {
+            final ArtifactExecutor executor = new ArtifactExecutor(mode, 4);
+            final List<Integer> results = executor.execute(inputs(), i -> {
+                Thread.sleep((50 - i) % 5);
+                return i * 2;
+            });
+            assertEquals(50, results.size());
+            for (int i = 0; i < 50; i++) {
+                assertEquals(i * 2, results.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testExceptionIsPropagated() throws Exception {
+        final ArtifactExecutor executor = new ArtifactExecutor(ArtifactExecutor.Mode.PARALLEL, 4);
+        try {
+            executor.execute(inputs(), i -> {
+                if (i == 17) {
+                    throw new IOException("failed " + i);
+                }
+                return i;
+            });
+            fail();
+        } catch (final IOException expected) {
+            assertEquals("failed 17", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        assertEquals(
+                ArtifactExecutor.Mode.SEQUENTIAL,
+                ArtifactExecutor.fromConfiguration(Collections.emptyMap(), ArtifactExecutor.Mode.SEQUENTIAL)
+                        .getMode());
+
+        final Map<String, String> cfg = new HashMap<>();
+        cfg.put(ArtifactExecutor.CFG_EXECUTION_MODE, "parallel");
+        assertEquals(
+                ArtifactExecutor.Mode.PARALLEL,
+                ArtifactExecutor.fromConfiguration(cfg, ArtifactExecutor.Mode.SEQUENTIAL)
+                        .getMode());
+
+        // virtual threads fall back to parallel mode on older runtimes
+        cfg.put(ArtifactExecutor.CFG_EXECUTION_MODE, "virtual");
+        assertNotEquals(
+                ArtifactExecutor.Mode.SEQUENTIAL,
+                ArtifactExecutor.fromConfiguration(cfg, ArtifactExecutor.Mode.SEQUENTIAL)
+                        .getMode());
+    }
+}
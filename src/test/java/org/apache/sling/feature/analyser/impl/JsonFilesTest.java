@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.impl;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import jakarta.json.Json;
+import jakarta.json.JsonReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class JsonFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        final File file = new File(new File(folder.getRoot(), "store"), "entry.json");
+        JsonFiles.write(file, Json.createObjectBuilder().add("a", 1).build());
+        JsonFiles.write(file, Json.createObjectBuilder().add("a", 2).build());
+
+        assertArrayEquals(new String[] {"entry.json"}, file.getParentFile().list());
+        try (final Reader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+                final JsonReader reader = Json.createReader(r)) {
+            assertEquals(2, reader.readObject().getInt("a"));
+        }
+    }
+}
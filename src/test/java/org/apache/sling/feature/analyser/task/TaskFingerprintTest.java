@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.sling.feature.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class TaskFingerprintTest {
+
+    @Test
+    public void testStringBoundaries() {
+        assertNotEquals(
+                new TaskFingerprint().add("ab").add("c").build(),
+                new TaskFingerprint().add("a").add("bc").build());
+        assertNotEquals(
+                new TaskFingerprint().add((String) null).build(),
+                new TaskFingerprint().add("").build());
+    }
+
+    @Test
+    public void testMapOrderIsIgnored() {
+        final Map<String, String> m1 = new LinkedHashMap<>();
+        m1.put("a", "1");
+        m1.put("b", "2");
+        final Map<String, String> m2 = new LinkedHashMap<>();
+        m2.put("b", "2");
+        m2.put("a", "1");
+        assertEquals(
+                new TaskFingerprint().add(m1).build(),
+                new TaskFingerprint().add(m2).build());
+    }
+
+    @Test
+    public void testConfiguration() {
+        final Configuration c1 = new Configuration("my.pid");
+        c1.getProperties().put("a", new String[] {"x", "y"});
+        final Configuration c2 = new Configuration("my.pid");
+        c2.getProperties().put("a", new String[] {"x", "y"});
+        assertEquals(
+                new TaskFingerprint().add(c1).build(),
+                new TaskFingerprint().add(c2).build());
+
+        c2.getProperties().put("a", new String[] {"x", "z"});
+        assertNotEquals(
+                new TaskFingerprint().add(c1).build(),
+                new TaskFingerprint().add(c2).build());
+    }
+}
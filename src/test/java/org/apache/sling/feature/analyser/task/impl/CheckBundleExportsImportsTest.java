@@ -21,6 +21,8 @@ package org.apache.sling.feature.analyser.task.impl;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
 
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
@@ -157,6 +159,58 @@ public class CheckBundleExportsImportsTest {
         Mockito.verify(ctx, Mockito.never()).reportWarning(Mockito.anyString());
     }
 
+    @Test
+    public void testImportVersionRangesAndStartOrder() throws Exception {
+        CheckBundleExportsImports t = new CheckBundleExportsImports();
+
+        Feature f = new Feature(ArtifactId.fromMvnId("f:f:1"));
+        FeatureDescriptor fd = new FeatureDescriptorImpl(f);
+
+        fdAddBundle(fd, "g:e1:1", 1, "org.foo.a;version=1.2.0,org.foo.b;version=1.0.0", null);
+        fdAddBundle(fd, "g:e2:1", 1, "org.foo.a;version=1.5.0,org.foo.a;version=3.0.0", null);
+        fdAddBundle(fd, "g:e3:1", 3, "org.foo.c;version=1.0.0", null);
+        // matches e1 and e2
+        fdAddBundle(fd, "g:i1:1", 2, null, "org.foo.a;version=\"[1.0,2)\"");
+        // matches e2 only, exclusive lower bound
+        fdAddBundle(fd, "g:i2:1", 2, null, "org.foo.a;version=\"(1.2,4)\",org.foo.b;version=\"[1,1]\"");
+        // no version in range
+        fdAddBundle(fd, "g:i3:1", 2, null, "org.foo.a;version=\"[2,3)\"");
+        // exported in a later start level only
+        fdAddBundle(fd, "g:i4:1", 2, null, "org.foo.c;version=\"[1,2)\"");
+
+        AnalyserTaskContext ctx = Mockito.mock(AnalyserTaskContext.class);
+        Mockito.when(ctx.getFeature()).thenReturn(f);
+        Mockito.when(ctx.getFeatureDescriptor()).thenReturn(fd);
+        t.execute(ctx);
+
+        Mockito.verify(ctx, Mockito.times(2)).reportArtifactError(Mockito.any(), Mockito.anyString());
+        Mockito.verify(ctx)
+                .reportArtifactError(
+                        Mockito.eq(ArtifactId.fromMvnId("g:i3:1")), Mockito.contains("in the required version range"));
+        Mockito.verify(ctx)
+                .reportArtifactError(
+                        Mockito.eq(ArtifactId.fromMvnId("g:i4:1")), Mockito.contains("no bundle is exporting"));
+    }
+
+    private void fdAddBundle(FeatureDescriptor fd, String id, int startOrder, String exports, String imports)
+            throws IOException {
+        final Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        mf.getMainAttributes()
+                .putValue("Bundle-SymbolicName", ArtifactId.fromMvnId(id).getArtifactId());
+        mf.getMainAttributes().putValue("Bundle-Version", "1.0.0");
+        if (exports != null) {
+            mf.getMainAttributes().putValue("Export-Package", exports);
+        }
+        if (imports != null) {
+            mf.getMainAttributes().putValue("Import-Package", imports);
+        }
+        final Artifact artifact = new Artifact(ArtifactId.fromMvnId(id));
+        artifact.setStartOrder(startOrder);
+        fd.getBundleDescriptors().add(new BundleDescriptorImpl(artifact, null, mf));
+    }
+
     private void fdAddBundle(FeatureDescriptor fd, String id, String file) throws IOException {
         BundleDescriptor bd1 = new BundleDescriptorImpl(
                 new Artifact(ArtifactId.fromMvnId(id)),
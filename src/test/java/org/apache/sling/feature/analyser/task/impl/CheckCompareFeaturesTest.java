@@ -37,6 +37,7 @@ import org.mockito.Mockito;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class CheckCompareFeaturesTest {
@@ -98,6 +99,64 @@ public class CheckCompareFeaturesTest {
         assertNull(CheckCompareFeatures.assertArtifactsSame(a1, a2, false));
     }
 
+    @Test
+    public void testDiff() {
+        Artifacts a1 = new Artifacts();
+        a1.add(new Artifact(ArtifactId.fromMvnId("g:same:1")));
+        a1.add(new Artifact(ArtifactId.fromMvnId("g:removed:1")));
+        a1.add(new Artifact(ArtifactId.fromMvnId("g:version:1")));
+        Artifact md1 = new Artifact(ArtifactId.fromMvnId("g:metadata:1"));
+        md1.getMetadata().put("foo", "bar");
+        a1.add(md1);
+
+        Artifacts a2 = new Artifacts();
+        a2.add(new Artifact(ArtifactId.fromMvnId("g:metadata:1")));
+        a2.add(new Artifact(ArtifactId.fromMvnId("g:added:1")));
+        a2.add(new Artifact(ArtifactId.fromMvnId("g:version:2")));
+        a2.add(new Artifact(ArtifactId.fromMvnId("g:same:1")));
+
+        CheckCompareFeatures.Diff diff = CheckCompareFeatures.diff(a1, a2, true);
+        assertEquals(1, diff.added.size());
+        assertEquals(ArtifactId.fromMvnId("g:added:1"), diff.added.get(0).getId());
+        assertEquals(1, diff.removed.size());
+        assertEquals(ArtifactId.fromMvnId("g:removed:1"), diff.removed.get(0).getId());
+        assertEquals(1, diff.versionChanged.size());
+        assertEquals(ArtifactId.fromMvnId("g:version:1"), diff.versionChanged.get(0)[0].getId());
+        assertEquals(ArtifactId.fromMvnId("g:version:2"), diff.versionChanged.get(0)[1].getId());
+        assertEquals(1, diff.metadataChanged.size());
+        assertEquals(ArtifactId.fromMvnId("g:metadata:1"), diff.metadataChanged.get(0)[0].getId());
+
+        String message = CheckCompareFeatures.assertArtifactsSame(a1, a2, true);
+        assertTrue(message.contains("g:added:1"));
+        assertTrue(message.contains("g:removed:1"));
+        assertTrue(message.contains("Version of g:version:1 changed to 2"));
+        assertTrue(message.contains("Metadata of g:metadata:1"));
+
+        assertTrue(CheckCompareFeatures.diff(a1, a2, false).metadataChanged.isEmpty());
+    }
+
+    @Test
+    public void testExecuteMultipleBaselines() throws Exception {
+        Feature f = new Feature(ArtifactId.fromMvnId("g:a:123"));
+        f.getBundles().add(new Artifact(ArtifactId.fromMvnId("g:b:1")));
+        Feature f2 = new Feature(ArtifactId.fromMvnId("g:a:124"));
+        f2.getBundles().add(new Artifact(ArtifactId.fromMvnId("g:b:2")));
+        Feature fc = new Feature(ArtifactId.fromMvnId("g:b:456"));
+        fc.getBundles().add(new Artifact(ArtifactId.fromMvnId("g:b:1")));
+
+        Map<String, String> cfg = new HashMap<>();
+        cfg.put("compare-with", "g:a:123, g:a:124");
+        AnalyserTaskContext ctx = Mockito.mock(AnalyserTaskContext.class);
+        Mockito.when(ctx.getConfiguration()).thenReturn(cfg);
+        Mockito.when(ctx.getFeatureProvider()).thenReturn(id -> id.equals(f.getId()) ? f : f2);
+        Mockito.when(ctx.getFeature()).thenReturn(fc);
+
+        new CheckCompareFeatures().execute(ctx);
+
+        Mockito.verify(ctx).reportError(Mockito.anyString());
+        Mockito.verify(ctx).reportError(Mockito.contains("g:a:124 and g:b:456 failed: Version of g:b:2 changed to 1"));
+    }
+
     @Test
     public void testFindArtifactsToCompare() throws Exception {
         Feature f = new Feature(ArtifactId.fromMvnId("x:y:123"));
@@ -18,9 +18,18 @@
  */
 package org.apache.sling.feature.analyser.task.impl;
 
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
@@ -29,10 +38,13 @@ import org.apache.sling.feature.analyser.task.AnalyserTask;
 import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
 import org.apache.sling.feature.scanner.ContentPackageDescriptor;
 import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.impl.ContentPackageDescriptorImpl;
 import org.apache.sling.feature.scanner.impl.FeatureDescriptorImpl;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -40,10 +52,15 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class CheckContentPackagesDependenciesTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private AnalyserTask task;
 
     @Before
@@ -75,6 +92,76 @@ public class CheckContentPackagesDependenciesTest {
         assertTrue(errors.isEmpty());
     }
 
+    @Test
+    public void dependenciesFromPackageProperties() throws Exception {
+        FeatureDescriptor featureDescriptor = new FeatureDescriptorImpl(new Feature(ArtifactId.parse("g:f:1")));
+        // cyclic dependencies with version ranges
+        addPackage(featureDescriptor, "a", "2.0", "g:b:[1.0,2.0),g:c");
+        addPackage(featureDescriptor, "b", "1.5", "g:a:[2.0,3.0),g:d:[1.0,2.0)");
+        addPackage(featureDescriptor, "c", "1.0", "g:a,g:d:[2.0,3.0)");
+        addPackage(featureDescriptor, "d", "1.0", null);
+
+        ContentPackageDescriptor descriptor = featureDescriptor.getDescriptors(ContentPackageDescriptor.class).stream()
+                .filter(d -> "a".equals(d.getName()))
+                .findFirst()
+                .get();
+        assertEquals("g", descriptor.getPackageGroup());
+        assertEquals("a", descriptor.getPackageName());
+        assertEquals("2.0", descriptor.getPackageVersion());
+        assertEquals("g:b:[1.0,2.0),g:c", descriptor.getPackageDependencies());
+
+        List<String> errors = execute(featureDescriptor);
+        Collections.sort(errors);
+        assertEquals(
+                Arrays.asList(
+                        "Missing g:d:[2.0,3.0) dependency for g:a:2.0",
+                        "Missing g:d:[2.0,3.0) dependency for g:b:1.5",
+                        "Missing g:d:[2.0,3.0) dependency for g:c:1.0"),
+                errors);
+    }
+
+    @Test
+    public void invalidArtifactFile() throws Exception {
+        FeatureDescriptor featureDescriptor = new FeatureDescriptorImpl(new Feature(ArtifactId.parse("g:f:1")));
+        addPackage(featureDescriptor, "a", "1.0", "g:b");
+        File file = new File(folder.getRoot(), "a.zip");
+        // a directory in place of the archive
+        assertTrue(file.delete());
+        assertTrue(file.mkdir());
+
+        AnalyserTaskContext ctx = mock(AnalyserTaskContext.class);
+        when(ctx.getFeatureDescriptor()).thenReturn(featureDescriptor);
+        task.execute(ctx);
+
+        verify(ctx)
+                .reportArtifactError(
+                        ArtifactId.parse("g:a:zip:1.0"),
+                        "Artifact file " + file + " does not exist or it is not a file");
+        verify(ctx, never()).reportError(anyString());
+    }
+
+    private void addPackage(FeatureDescriptor featureDescriptor, String name, String version, String deps)
+            throws IOException {
+        Properties props = new Properties();
+        props.put("group", "g");
+        props.put("name", name);
+        props.put("version", version);
+        if (deps != null) {
+            props.put("dependencies", deps);
+        }
+        featureDescriptor
+                .getArtifactDescriptors()
+                .add(new ContentPackageDescriptorImpl(
+                        name,
+                        new Artifact(ArtifactId.parse("g:" + name + ":zip:" + version)),
+                        folder.newFile(name + ".zip").toURI().toURL(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        props));
+    }
+
     private List<String> execute(String... resources) throws Exception {
         Feature feature = mock(Feature.class);
         when(feature.getId())
@@ -87,14 +174,17 @@ public class CheckContentPackagesDependenciesTest {
             Artifact artifact = mock(Artifact.class);
             when(artifact.getId()).thenReturn(id);
 
-            ContentPackageDescriptor descriptor = mock(ContentPackageDescriptor.class);
-            when(descriptor.getArtifact()).thenReturn(artifact);
-            when(descriptor.getArtifactFile())
-                    .thenReturn(getClass().getClassLoader().getResource(resource));
+            URL url = getClass().getClassLoader().getResource(resource);
+            ContentPackageDescriptor descriptor = new ContentPackageDescriptorImpl(
+                    resource, artifact, url, null, null, null, null, readPackageProperties(url));
 
             featureDescriptor.getArtifactDescriptors().add(descriptor);
         }
 
+        return execute(featureDescriptor);
+    }
+
+    private List<String> execute(FeatureDescriptor featureDescriptor) throws Exception {
         AnalyserTaskContext ctx = mock(AnalyserTaskContext.class);
 
         when(ctx.getFeatureDescriptor()).thenReturn(featureDescriptor);
@@ -113,4 +203,22 @@ public class CheckContentPackagesDependenciesTest {
 
         return errors;
     }
+
+    private static Properties readPackageProperties(URL url) throws IOException {
+        Properties props = new Properties();
+        try (ZipInputStream zis = new ZipInputStream(url.openStream())) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if ("META-INF/vault/properties.xml".equals(entry.getName())) {
+                    props.loadFromXML(new FilterInputStream(zis) {
+                        @Override
+                        public void close() {
+                            // keep the archive open
+                        }
+                    });
+                }
+            }
+        }
+        return props;
+    }
 }
@@ -19,20 +19,30 @@
 package org.apache.sling.feature.analyser.task.impl;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Properties;
 
 import org.apache.sling.feature.Artifact;
 import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.analyser.impl.ArtifactExecutor;
 import org.apache.sling.feature.scanner.FeatureDescriptor;
 import org.apache.sling.feature.scanner.impl.ContentPackageDescriptorImpl;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class CheckContentPackagesTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final CheckContentPackages analyser;
     private final AnalyserTaskContextImpl ctx;
     private final FeatureDescriptor fd;
@@ -97,6 +107,81 @@ public class CheckContentPackagesTest {
                                 .replace('/', File.separatorChar))));
     }
 
+    @Test
+    public void testContentPackagesAreReportedInArtifactOrder() throws Exception {
+        final AnalyserTaskContextImpl spy = Mockito.spy(ctx);
+        spy.getConfiguration().put(CheckContentPackages.ENABLED_VALIDATORS, "jackrabbit-docviewparser");
+        spy.getConfiguration().put(CheckContentPackages.MAX_REPORT_LEVEL, "ERROR");
+        spy.getConfiguration().put(ArtifactExecutor.CFG_PARALLELISM, "3");
+        for (final String id : new String[] {"g:c3:1", "g:c1:1", "g:c2:1"}) {
+            fd.getArtifactDescriptors()
+                    .add(new ContentPackageDescriptorImpl(
+                            "content",
+                            new Artifact(ArtifactId.parse(id)),
+                            getClass()
+                                    .getClassLoader()
+                                    .getResource("test-invalid-xml.zip")
+                                    .toURI()
+                                    .toURL(),
+                            null,
+                            null,
+                            null,
+                            null,
+                            new Properties()));
+        }
+
+        analyser.execute(spy);
+        assertThat(spy.getErrors().size(), equalTo(3));
+        final InOrder order = Mockito.inOrder(spy);
+        for (final String id : new String[] {"g:c1:1", "g:c2:1", "g:c3:1"}) {
+            order.verify(spy).reportArtifactError(Mockito.eq(ArtifactId.parse(id)), Mockito.anyString());
+        }
+    }
+
+    @Test
+    public void testValidationResultsAreCached() throws Exception {
+        final File cacheDir = folder.newFolder("cache");
+        ctx.getConfiguration().put(CheckContentPackages.ENABLED_VALIDATORS, "jackrabbit-docviewparser");
+        ctx.getConfiguration().put(CheckContentPackages.MAX_REPORT_LEVEL, "ERROR");
+        ctx.getConfiguration().put(CheckContentPackages.CACHE_DIRECTORY, cacheDir.getAbsolutePath());
+        final ContentPackageDescriptorImpl cpd = new ContentPackageDescriptorImpl(
+                "content",
+                new Artifact(ArtifactId.parse("g:c:1")),
+                getClass()
+                        .getClassLoader()
+                        .getResource("test-invalid-xml.zip")
+                        .toURI()
+                        .toURL(),
+                null,
+                null,
+                null,
+                null,
+                new Properties());
+        fd.getArtifactDescriptors().add(cpd);
+
+        analyser.execute(ctx);
+        assertThat(ctx.getErrors().size(), equalTo(1));
+        final File[] entries = cacheDir.listFiles();
+        assertThat(entries.length, equalTo(1));
+
+        // a second run reports the cached results
+        final String cached = new String(Files.readAllBytes(entries[0].toPath()), StandardCharsets.UTF_8);
+        Files.write(
+                entries[0].toPath(),
+                cached.replace("ValidationViolation", "CachedViolation").getBytes(StandardCharsets.UTF_8));
+        ctx.getErrors().clear();
+        analyser.execute(ctx);
+        assertThat(ctx.getErrors().size(), equalTo(1));
+        assertThat(ctx.getErrors().get(0).startsWith("CachedViolation"), equalTo(true));
+
+        // a different report level is a different entry
+        ctx.getConfiguration().put(CheckContentPackages.MAX_REPORT_LEVEL, "WARN");
+        ctx.getErrors().clear();
+        analyser.execute(ctx);
+        assertThat(ctx.getErrors().size(), equalTo(0));
+        assertThat(cacheDir.listFiles().length, equalTo(2));
+    }
+
     @Test
     public void testInfo() throws Exception {
         assertThat(analyser.getId(), equalTo("content-packages-validation"));
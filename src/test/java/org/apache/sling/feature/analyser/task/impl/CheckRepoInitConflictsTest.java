@@ -18,6 +18,7 @@
  */
 package org.apache.sling.feature.analyser.task.impl;
 
+import org.apache.sling.feature.Configurations;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
@@ -47,12 +48,14 @@ class CheckRepoInitConflictsTest {
 
         Mockito.when(ctx.getFeature()).thenReturn(feature);
         Mockito.when(feature.getExtensions()).thenReturn(extensions);
+        Mockito.when(feature.getConfigurations()).thenReturn(new Configurations());
         Mockito.when(extensions.getByName("repoinit")).thenReturn(null);
 
         CheckRepoInitConflicts task = new CheckRepoInitConflicts();
         task.execute(ctx);
 
         Mockito.verify(ctx).getFeature();
+        Mockito.verify(ctx).getSharedValue(Mockito.eq(RepoInitModel.class), Mockito.any());
         Mockito.verifyNoMoreInteractions(ctx);
     }
 
@@ -69,6 +72,7 @@ class CheckRepoInitConflictsTest {
         task.execute(ctx);
 
         Mockito.verify(ctx).getFeature();
+        Mockito.verify(ctx).getSharedValue(Mockito.eq(RepoInitModel.class), Mockito.any());
         Mockito.verifyNoMoreInteractions(ctx);
     }
 
@@ -86,6 +90,7 @@ class CheckRepoInitConflictsTest {
         task.execute(ctx);
 
         Mockito.verify(ctx).getFeature();
+        Mockito.verify(ctx).getSharedValue(Mockito.eq(RepoInitModel.class), Mockito.any());
         Mockito.verify(ctx).reportWarning(Mockito.contains("conflicting repoinit"));
         Mockito.verify(ctx).reportWarning(Mockito.contains("Conflicting statement"));
     }
@@ -102,6 +107,7 @@ class CheckRepoInitConflictsTest {
         task.execute(ctx);
 
         Mockito.verify(ctx).getFeature();
+        Mockito.verify(ctx).getSharedValue(Mockito.eq(RepoInitModel.class), Mockito.any());
         Mockito.verifyNoMoreInteractions(ctx);
     }
 
@@ -117,6 +123,7 @@ class CheckRepoInitConflictsTest {
         org.apache.sling.feature.Extensions extensions = Mockito.mock(org.apache.sling.feature.Extensions.class);
 
         Mockito.when(feature.getExtensions()).thenReturn(extensions);
+        Mockito.when(feature.getConfigurations()).thenReturn(new Configurations());
         Mockito.when(extensions.getByName("repoinit")).thenReturn(extension);
 
         return feature;
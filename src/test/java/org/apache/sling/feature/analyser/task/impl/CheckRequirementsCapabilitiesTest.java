@@ -37,6 +37,7 @@ import org.apache.sling.feature.scanner.BundleDescriptor;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.osgi.framework.Version;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Namespace;
 import org.osgi.resource.Resource;
@@ -168,6 +169,45 @@ public class CheckRequirementsCapabilitiesTest {
         Mockito.verify(ctx, never()).reportWarning(Mockito.anyString());
     }
 
+    @Test
+    public void testPrimaryAttributeAndFilterMatching() throws Exception {
+        AnalyserTaskContext ctx = Mockito.spy(new AnalyserTaskContextImpl());
+
+        BundleDescriptor consumer = createBundleDescriptor("extender:consumer:1.0.0");
+        consumer.getRequirements()
+                .add(requirement(
+                        "osgi.extender", "(&(osgi.extender=osgi.component)(version>=1.4.0)(!(version>=2.0.0)))"));
+        consumer.getRequirements()
+                .add(requirement("osgi.extender", "(|(osgi.extender=osgi.cdi)(osgi.extender=osgi.jpa))"));
+        ctx.getFeatureDescriptor().getBundleDescriptors().add(consumer);
+        ctx.getFeatureDescriptor()
+                .getBundleDescriptors()
+                .addAll(asList(
+                        extenderProvider("extender:scr:1.0.0", "osgi.component", "1.5.0"),
+                        extenderProvider("extender:scr2:1.0.0", "osgi.component", "2.0.0"),
+                        extenderProvider("extender:cdi:1.0.0", "osgi.cdi", "1.0.0"),
+                        extenderProvider("extender:jpa:1.0.0", "osgi.jpa", "1.0.0")));
+
+        CheckRequirementsCapabilities crc = new CheckRequirementsCapabilities();
+        crc.execute(ctx);
+
+        Mockito.verify(ctx, never()).reportArtifactError(Mockito.any(), Mockito.anyString());
+        Mockito.verify(ctx, never()).reportError(Mockito.anyString());
+        // only the second requirement is satisfied by more than one artifact
+        Mockito.verify(ctx, times(1))
+                .reportArtifactWarning(
+                        Mockito.any(),
+                        Mockito.contains("there is more than one matching capability in this start level"));
+        Mockito.verify(ctx, times(1)).reportArtifactWarning(Mockito.any(), Mockito.contains("osgi.jpa"));
+    }
+
+    private @NotNull BundleDescriptor extenderProvider(String mvnId, String name, String version) {
+        BundleDescriptor provider = createBundleDescriptor(mvnId);
+        provider.getCapabilities()
+                .add(capability("osgi.extender", attributes("osgi.extender", name, "version", new Version(version))));
+        return provider;
+    }
+
     private BundleDescriptor createBundleDescriptor(String mvnId) {
         ArtifactId artifactId = ArtifactId.fromMvnId(mvnId);
         return new BundleDescriptor(mvnId) {
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task.impl;
+
+import java.io.IOException;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.apache.sling.feature.scanner.impl.BundleDescriptorImpl;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+
+public class CheckUnusedBundlesTest {
+
+    @Test
+    public void testId() {
+        assertEquals("check-unused-bundles", new CheckUnusedBundles().getId());
+    }
+
+    @Test
+    public void testUnusedBundles() throws Exception {
+        final AnalyserTaskContext ctx = Mockito.spy(new AnalyserTaskContextImpl());
+
+        // used
+        addBundle(ctx, "g:used:1", "org.foo.a;version=1.0.0,org.foo.b;version=1.0.0", null);
+        // not imported at all
+        addBundle(ctx, "g:unused:1", "org.foo.c;version=1.0.0", null);
+        // only imported in a non matching version
+        addBundle(ctx, "g:version:1", "org.foo.d;version=3.0.0", "org.foo.d;version=\"[3,4)\"");
+        // only imported optionally
+        addBundle(ctx, "g:optional:1", "org.foo.e;version=1.0.0", null);
+
+        addBundle(
+                ctx,
+                "g:consumer:1",
+                null,
+                "org.foo.b;version=\"[1,2)\",org.foo.d;version=\"[1,2)\","
+                        + "org.foo.e;version=\"[1,2)\";resolution:=optional");
+
+        new CheckUnusedBundles().execute(ctx);
+
+        Mockito.verify(ctx, Mockito.times(3)).reportArtifactWarning(Mockito.any(), Mockito.anyString());
+        Mockito.verify(ctx)
+                .reportArtifactWarning(
+                        Mockito.eq(ArtifactId.parse("g:unused:1")), Mockito.contains("not imported by any"));
+        Mockito.verify(ctx)
+                .reportArtifactWarning(
+                        Mockito.eq(ArtifactId.parse("g:version:1")), Mockito.contains("not imported by any"));
+        Mockito.verify(ctx)
+                .reportArtifactWarning(
+                        Mockito.eq(ArtifactId.parse("g:optional:1")), Mockito.contains("only imported optionally"));
+    }
+
+    private void addBundle(final AnalyserTaskContext ctx, final String id, final String exports, final String imports)
+            throws IOException {
+        final Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        mf.getMainAttributes()
+                .putValue("Bundle-SymbolicName", ArtifactId.parse(id).getArtifactId());
+        mf.getMainAttributes().putValue("Bundle-Version", "1.0.0");
+        if (exports != null) {
+            mf.getMainAttributes().putValue("Export-Package", exports);
+        }
+        if (imports != null) {
+            mf.getMainAttributes().putValue("Import-Package", imports);
+        }
+        ctx.getFeatureDescriptor()
+                .getBundleDescriptors()
+                .add(new BundleDescriptorImpl(new Artifact(ArtifactId.parse(id)), null, mf));
+    }
+}
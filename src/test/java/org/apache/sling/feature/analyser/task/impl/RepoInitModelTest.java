@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.analyser.task.impl;
+
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionState;
+import org.apache.sling.feature.ExtensionType;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.task.AnalyserTaskContext;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RepoInitModelTest {
+
+    @Test
+    public void testSources() throws Exception {
+        final Feature feature = new Feature(ArtifactId.parse("g:a:1"));
+        final Extension ext =
+                new Extension(ExtensionType.TEXT, Extension.EXTENSION_NAME_REPOINIT, ExtensionState.REQUIRED);
+        ext.setText("create path /a/b\ncreate path /c");
+        feature.getExtensions().add(ext);
+
+        final Configuration cfg = new Configuration(CheckRepoinit.FACTORY_PID + "~test");
+        cfg.getProperties().put("scripts", new String[] {"create service user a", "invalid $$$"});
+        feature.getConfigurations().add(cfg);
+        feature.getConfigurations().add(new Configuration("org.apache.sling.other"));
+
+        final RepoInitModel model = RepoInitModel.create(feature);
+        assertSame(feature, model.getFeature());
+        assertEquals(3, model.getSources().size());
+
+        assertEquals("extension", model.getSources().get(0).getId());
+        assertNull(model.getSources().get(0).getConfiguration());
+        assertNull(model.getSources().get(0).getError());
+        assertEquals(2, model.getSources().get(0).getOperations().size());
+
+        assertEquals(
+                "configuration " + CheckRepoinit.FACTORY_PID + "~test",
+                model.getSources().get(1).getId());
+        assertSame(cfg, model.getSources().get(1).getConfiguration());
+        assertEquals(1, model.getSources().get(1).getOperations().size());
+
+        assertNotNull(model.getSources().get(2).getError());
+        assertTrue(model.getSources().get(2).getOperations().isEmpty());
+    }
+
+    @Test
+    public void testNoRepoinit() throws Exception {
+        final AnalyserTaskContextImpl ctx = new AnalyserTaskContextImpl();
+        assertTrue(RepoInitModel.get(ctx).getSources().isEmpty());
+    }
+
+    @Test
+    public void testSharedModel() throws Exception {
+        final Feature feature = new Feature(ArtifactId.parse("g:a:1"));
+        final RepoInitModel shared = RepoInitModel.create(feature);
+
+        final AnalyserTaskContext ctx = Mockito.mock(AnalyserTaskContext.class);
+        Mockito.when(ctx.getFeature()).thenReturn(feature);
+        Mockito.when(ctx.getSharedValue(Mockito.eq(RepoInitModel.class), Mockito.any()))
+                .thenReturn(shared);
+        assertSame(shared, RepoInitModel.get(ctx));
+
+        // a context without a shared value
+        Mockito.reset(ctx);
+        Mockito.when(ctx.getFeature()).thenReturn(feature);
+        assertSame(feature, RepoInitModel.get(ctx).getFeature());
+    }
+}
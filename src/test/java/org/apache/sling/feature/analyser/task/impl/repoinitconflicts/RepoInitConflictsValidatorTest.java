@@ -20,9 +20,12 @@ package org.apache.sling.feature.analyser.task.impl.repoinitconflicts;
 
 import java.util.List;
 
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.Configurations;
 import org.apache.sling.feature.Extension;
 import org.apache.sling.feature.ExtensionType;
 import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.task.impl.CheckRepoinit;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -36,6 +39,7 @@ class RepoInitConflictsValidatorTest {
     void shouldReturnNoIssuesWhenFeatureHasNoRepoinit() {
         Feature feature = mock(Feature.class);
         when(feature.getExtensions()).thenReturn(mock(org.apache.sling.feature.Extensions.class));
+        when(feature.getConfigurations()).thenReturn(new Configurations());
         when(feature.getExtensions().getByName("repoinit")).thenReturn(null);
 
         ValidationReport report = RepoInitConflictsValidator.validate(feature);
@@ -102,6 +106,44 @@ class RepoInitConflictsValidatorTest {
         assertTrue(report.generate().contains("No issues found"));
     }
 
+    @Test
+    void shouldReportConflictsWithFactoryConfigurations() {
+        Extension extension = textExtension("create path (sling:Folder) /apps/a/b(sling:OrderedFolder)");
+        Feature feature = featureWithExtension(extension);
+
+        Configuration cfg = new Configuration(CheckRepoinit.FACTORY_PID + "~test");
+        cfg.getProperties()
+                .put("scripts", new String[] {"create path (sling:Folder) /apps/a/b", "create path /apps/x(nt:folder)"
+                });
+        feature.getConfigurations().add(cfg);
+
+        ValidationReport report = RepoInitConflictsValidator.validate(feature);
+        assertTrue(report.hasConflicts());
+        assertTrue(report.generate().get(2).contains("Found 1 sets of conflicting repoinit statements"));
+    }
+
+    @Test
+    void shouldReportEachConflictingPairOnce() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            script.append("create path (sling:Folder) /apps/p").append(i).append("/a/b\n");
+        }
+        // conflicts on the second segment, different depth and a conflict below a conflict
+        script.append("create path (sling:Folder) /apps/p1(nt:folder)/a/b\n");
+        script.append("create path (sling:Folder) /apps/p1(nt:folder)/a\n");
+        script.append("create path (sling:Folder) /apps/p2/a/b(nt:folder)\n");
+        script.append("create path (sling:Folder) /apps/p2/a(nt:folder)/b(nt:folder)\n");
+
+        Feature feature = featureWithExtension(textExtension(script.toString()));
+
+        List<String> result = RepoInitConflictsValidator.validate(feature).generate();
+        // p1 conflicts with the generated p1 statement, p2/a/b conflicts with the generated statement
+        // and the last statement conflicts with both
+        assertTrue(result.get(2).contains("Found 4 sets of conflicting repoinit statements"));
+        assertTrue(result.get(3).contains("/apps/p1/a/b"));
+        assertTrue(result.get(3).contains("nt:folder"));
+    }
+
     private Extension textExtension(String text) {
         Extension extension = mock(Extension.class);
         when(extension.getType()).thenReturn(ExtensionType.TEXT);
@@ -115,6 +157,7 @@ class RepoInitConflictsValidatorTest {
 
         when(feature.getExtensions()).thenReturn(extensions);
         when(extensions.getByName("repoinit")).thenReturn(extension);
+        when(feature.getConfigurations()).thenReturn(new Configurations());
 
         return feature;
     }
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.scanner.impl.BundleDescriptorImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BundleContentIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Manifest createManifest() {
+        final Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        mf.getMainAttributes().putValue("Bundle-SymbolicName", "test");
+        mf.getMainAttributes().putValue("Bundle-Version", "1.0.0");
+        mf.getMainAttributes().putValue("Bundle-ClassPath", ".,lib/stored.jar, /lib/deflated.jar;foo=bar");
+        return mf;
+    }
+
+    private byte[] createJar(final String... entries) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ZipOutputStream zos = new ZipOutputStream(out)) {
+            for (final String name : entries) {
+                zos.putNextEntry(new ZipEntry(name));
+                zos.write(new byte[100]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private File createBundle() throws IOException {
+        final File file = folder.newFile("bundle.jar");
+        try (final JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), createManifest())) {
+            jos.putNextEntry(new ZipEntry("org/foo/"));
+            jos.putNextEntry(new ZipEntry("org/foo/A.class"));
+            jos.write(new byte[10]);
+            jos.putNextEntry(new ZipEntry("org/foo/bar/B.class"));
+            jos.write(new byte[10]);
+            jos.putNextEntry(new ZipEntry("Default.class"));
+            jos.write(new byte[10]);
+            jos.putNextEntry(new ZipEntry("OSGI-INF/component.xml"));
+            jos.write(new byte[10]);
+
+            final byte[] stored = createJar("org/stored/C.class", "org/stored/res.txt");
+            final ZipEntry storedEntry = new ZipEntry("lib/stored.jar");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            final CRC32 crc = new CRC32();
+            crc.update(stored);
+            storedEntry.setCrc(crc.getValue());
+            jos.putNextEntry(storedEntry);
+            jos.write(stored);
+
+            jos.putNextEntry(new ZipEntry("lib/deflated.jar"));
+            jos.write(createJar("org/deflated/D.class", "E.class"));
+
+            jos.putNextEntry(new ZipEntry("lib/unused.jar"));
+            jos.write(createJar("org/unused/F.class"));
+        }
+        return file;
+    }
+
+    private void assertIndex(final BundleContentIndex index) {
+        assertEquals(new HashSet<>(Arrays.asList("org.foo", "org.foo.bar", "")), index.getPackages());
+        assertEquals(
+                new HashSet<>(Arrays.asList(
+                        "META-INF/MANIFEST.MF",
+                        "OSGI-INF/component.xml",
+                        "lib/stored.jar",
+                        "lib/deflated.jar",
+                        "lib/unused.jar")),
+                index.getResources());
+        assertEquals(2, index.getClassPathPackages().size());
+        assertEquals(
+                new HashSet<>(Arrays.asList("org.stored")),
+                index.getClassPathPackages().get("lib/stored.jar"));
+        assertEquals(
+                new HashSet<>(Arrays.asList("org.deflated", "")),
+                index.getClassPathPackages().get("lib/deflated.jar"));
+    }
+
+    @Test
+    public void testIndexFromFile() throws Exception {
+        final File file = createBundle();
+        final BundleDescriptor bd = new BundleDescriptorImpl(
+                new Artifact(ArtifactId.parse("g:a:1")), file.toURI().toURL());
+        final BundleContentIndex index = bd.getContentIndex();
+        assertIndex(index);
+        assertSame(index, bd.getContentIndex());
+    }
+
+    @Test
+    public void testIndexFromStream() throws Exception {
+        final File file = createBundle();
+        final URL url = new URL(null, "test:bundle", new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(final URL u) {
+                return new URLConnection(u) {
+                    @Override
+                    public void connect() {}
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        return file.toURI().toURL().openStream();
+                    }
+                };
+            }
+        });
+        assertIndex(BundleContentIndex.create(url, createManifest()));
+    }
+
+    @Test
+    public void testCentralDirectory() throws Exception {
+        final byte[] jar = createJar("a/B.class", "c.txt");
+        final File file = folder.newFile("archive.bin");
+        try (final FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[10]);
+            out.write(jar);
+            out.write(new byte[10]);
+        }
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            assertEquals(
+                    Arrays.asList("a/B.class", "c.txt"),
+                    BundleContentIndex.readCentralDirectory(raf, 10, jar.length).stream()
+                            .map(e -> e.name)
+                            .collect(Collectors.toList()));
+            assertNull(BundleContentIndex.readCentralDirectory(raf, 0, 10));
+            assertNull(BundleContentIndex.readCentralDirectory(raf, 0, jar.length));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoFile() throws Exception {
+        BundleContentIndex.create(null, createManifest());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner;
+
+import java.util.Objects;
+
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.FeatureGenerator;
+import org.apache.sling.feature.analyser.TempDirArtifactProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FeatureIndexTest {
+
+    @Test
+    public void testIndex() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature =
+                    new FeatureGenerator().bundles(10).startLevels(2).generate(provider);
+            final FeatureDescriptor fd = new Scanner(provider).scan(feature);
+            final FeatureIndex index = fd.getIndex();
+
+            assertSame(index, fd.getIndex());
+            assertEquals(2, index.getBundlesByStartOrder().size());
+            assertEquals(5, index.getBundlesByStartOrder().get(1).size());
+            assertEquals(5, index.getBundlesByStartOrder().get(2).size());
+            assertEquals(10, index.getBundlesBySymbolicName().size());
+
+            assertTrue(index.getPackageImports("org.apache.sling.unknown").isEmpty());
+
+            for (final BundleDescriptor bd : fd.getBundleDescriptors()) {
+                for (final PackageInfo pck : bd.getImportedPackages()) {
+                    assertTrue(index.getPackageImports(pck.getName()).stream()
+                            .anyMatch(imp -> imp.getBundle() == bd
+                                    && imp.isOptional() == pck.isOptional()
+                                    && Objects.equals(imp.getVersionRange(), pck.getPackageVersionRange())));
+                }
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIndexIsUnmodifiable() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator().bundles(2).generate(provider);
+            final FeatureDescriptor fd = new Scanner(provider).scan(feature);
+            fd.getIndex().getBundlesByStartOrder().values().iterator().next().clear();
+        }
+    }
+
+    @Test
+    public void testIndexOfUnlockedDescriptor() throws Exception {
+        final FeatureDescriptor fd = new FeatureDescriptor(new Feature(ArtifactId.parse("g:a:1"))) {};
+        assertNotSame(fd.getIndex(), fd.getIndex());
+        assertTrue(fd.getIndex().getBundlesByStartOrder().isEmpty());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Manifest;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.felix.utils.resource.CapabilityImpl;
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.junit.Test;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactManifestsTest {
+
+    private static BundleDescriptor createDescriptor(final Artifact artifact, final String bsn) throws IOException {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue("Bundle-ManifestVersion", "2");
+        manifest.getMainAttributes().putValue("Bundle-SymbolicName", bsn);
+        manifest.getMainAttributes().putValue("Bundle-Version", "1.2.3");
+        manifest.getMainAttributes()
+                .putValue("Export-Package", "org.apache.a;version=1.0;uses:=\"org.apache.b,org.apache.c\"");
+        manifest.getMainAttributes()
+                .putValue("Import-Package", "org.apache.b;version=\"[1,2)\",org.apache.c;resolution:=optional");
+        manifest.getMainAttributes().putValue("DynamicImport-Package", "org.apache.d.*");
+        manifest.getMainAttributes()
+                .putValue(
+                        "Provide-Capability",
+                        "test.cap;test.cap=a;count:Long=5;ratio:Double=1.5;names:List<String>=\"x,y\"");
+        manifest.getMainAttributes().putValue("Require-Capability", "osgi.ee;filter:=\"(osgi.ee=JavaSE)\"");
+        return new BundleDescriptorImpl(artifact, null, manifest);
+    }
+
+    private static Set<String> toStrings(final Collection<? extends Object> values) {
+        final Set<String> result = new TreeSet<>();
+        for (final Object o : values) {
+            if (o instanceof Capability) {
+                final Capability c = (Capability) o;
+                result.add(c.getNamespace() + c.getDirectives() + new TreeMap<>(c.getAttributes()));
+            } else if (o instanceof Requirement) {
+                final Requirement r = (Requirement) o;
+                result.add(r.getNamespace() + r.getDirectives() + new TreeMap<>(r.getAttributes()));
+            } else {
+                result.add(o.toString());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Artifact artifact = new Artifact(ArtifactId.fromMvnId("g:a:1"));
+        final BundleDescriptor original = createDescriptor(artifact, "a");
+
+        final CompactManifests.Writer writer = new CompactManifests.Writer();
+        assertTrue(writer.isEmpty());
+        assertTrue(writer.add(original));
+        assertTrue(writer.add(createDescriptor(new Artifact(ArtifactId.fromMvnId("g:b:1")), "b")));
+        assertFalse(writer.isEmpty());
+
+        final Map<ArtifactId, CompactManifests.Entry> entries = CompactManifests.read(writer.toByteArray());
+        assertEquals(2, entries.size());
+
+        artifact.getMetadata().put("bundle:rename-bsn", "renamed");
+        final BundleDescriptor decoded = entries.get(artifact.getId()).createDescriptor(artifact, null);
+        assertTrue(decoded.isLocked());
+        assertEquals("renamed", decoded.getBundleSymbolicName());
+        assertEquals("1.2.3", decoded.getBundleVersion());
+        assertEquals(
+                original.getManifest().getMainAttributes(),
+                decoded.getManifest().getMainAttributes());
+        assertEquals(original.getExportedPackages(), decoded.getExportedPackages());
+        assertEquals(
+                original.getExportedPackages().iterator().next().getUses(),
+                decoded.getExportedPackages().iterator().next().getUses());
+        assertEquals(original.getImportedPackages(), decoded.getImportedPackages());
+        assertEquals(original.getDynamicImportedPackages(), decoded.getDynamicImportedPackages());
+        assertEquals(toStrings(original.getCapabilities()), toStrings(decoded.getCapabilities()));
+        assertEquals(toStrings(original.getRequirements()), toStrings(decoded.getRequirements()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidData() throws Exception {
+        CompactManifests.read(new byte[] {1, 2, 3});
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeCount() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(0x53464d43);
+            out.writeByte(1);
+            // dictionary size -1
+            out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        }
+        CompactManifests.read(bytes.toByteArray());
+    }
+
+    @Test
+    public void testUnsupportedAttribute() throws Exception {
+        final BundleDescriptor bundle = createDescriptor(new Artifact(ArtifactId.fromMvnId("g:a:1")), "a");
+        final CompactManifests.Writer expected = new CompactManifests.Writer();
+        assertTrue(expected.add(bundle));
+
+        final FeatureDescriptorImpl unsupported = new FeatureDescriptorImpl(new Feature(ArtifactId.parse("g:f:1")));
+        unsupported
+                .getCapabilities()
+                .add(new CapabilityImpl(
+                        null, "test.unsupported", Collections.emptyMap(), Collections.singletonMap("flag", true)));
+        final CompactManifests.Writer writer = new CompactManifests.Writer();
+        assertFalse(writer.add(unsupported.getFeature().getId(), null, unsupported));
+        assertTrue(writer.isEmpty());
+        assertTrue(writer.add(bundle));
+
+        // no strings of the rejected descriptor are kept
+        assertArrayEquals(expected.toByteArray(), writer.toByteArray());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.sling.feature.Artifact;
+import org.apache.sling.feature.ArtifactId;
+import org.apache.sling.feature.Configuration;
+import org.apache.sling.feature.ExecutionEnvironmentExtension;
+import org.apache.sling.feature.Extension;
+import org.apache.sling.feature.ExtensionState;
+import org.apache.sling.feature.ExtensionType;
+import org.apache.sling.feature.Feature;
+import org.apache.sling.feature.analyser.FeatureGenerator;
+import org.apache.sling.feature.analyser.TempDirArtifactProvider;
+import org.apache.sling.feature.scanner.BundleDescriptor;
+import org.apache.sling.feature.scanner.ContentPackageDescriptor;
+import org.apache.sling.feature.scanner.FeatureDescriptor;
+import org.apache.sling.feature.scanner.PackageInfo;
+import org.apache.sling.feature.scanner.Scanner;
+import org.apache.sling.feature.scanner.spi.FrameworkScanner;
+import org.junit.Test;
+import org.osgi.framework.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeatureDescriptorSnapshotTest {
+
+    private static List<String> toStrings(final List<Configuration> cfgs) {
+        return cfgs.stream()
+                .map(c -> c.getPid() + c.getConfigurationProperties())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator()
+                    .bundles(5)
+                    .contentPackages(2)
+                    .bundlesPerPackage(1)
+                    .configurationsPerPackage(2)
+                    .nestingDepth(1)
+                    .generate(provider);
+            final FeatureDescriptor original = new Scanner(provider).scan(feature);
+
+            final StringWriter writer = new StringWriter();
+            new Scanner(provider).writeSnapshot(original, writer);
+
+            final Scanner scanner = new Scanner(provider);
+            final FeatureDescriptor loaded = scanner.loadSnapshot(feature, new StringReader(writer.toString()));
+            assertTrue(loaded.isLocked());
+            assertSame(loaded, scanner.scan(feature));
+
+            assertEquals(original.getBundleDescriptors(), loaded.getBundleDescriptors());
+            for (final BundleDescriptor bd : loaded.getBundleDescriptors()) {
+                assertSame(bd, scanner.scanBundle(bd.getArtifact()));
+                if (feature.getBundles().contains(bd.getArtifact())) {
+                    assertNotNull(bd.getArtifactFile());
+                }
+            }
+            assertEquals(original.getExportedPackages(), loaded.getExportedPackages());
+            assertEquals(original.getImportedPackages(), loaded.getImportedPackages());
+            assertEquals(original.getDynamicImportedPackages(), loaded.getDynamicImportedPackages());
+            assertEquals(
+                    original.getCapabilities().size(), loaded.getCapabilities().size());
+            assertEquals(
+                    original.getRequirements().size(), loaded.getRequirements().size());
+
+            final Map<String, ContentPackageDescriptor> loadedPackages = new HashMap<>();
+            for (final ContentPackageDescriptor cp : loaded.getDescriptors(ContentPackageDescriptor.class)) {
+                loadedPackages.put(cp.getName(), cp);
+            }
+            final Set<ContentPackageDescriptor> originalPackages =
+                    original.getDescriptors(ContentPackageDescriptor.class);
+            assertEquals(originalPackages.size(), loadedPackages.size());
+            assertTrue(loadedPackages.values().stream().anyMatch(ContentPackageDescriptor::isEmbeddedInContentPackage));
+            for (final ContentPackageDescriptor o : originalPackages) {
+                final ContentPackageDescriptor l = loadedPackages.get(o.getName());
+                assertEquals(o.getName(), l.getName());
+                assertEquals(o.getArtifact().getId(), l.getArtifact().getId());
+                assertEquals(o.getContentPaths(), l.getContentPaths());
+                assertEquals(toStrings(o.getConfigurations()), toStrings(l.getConfigurations()));
+                assertEquals(o.getBundles(), l.getBundles());
+                assertEquals(o.getParentContentPath(), l.getParentContentPath());
+                if (o.getParentContentPackage() == null) {
+                    assertNull(l.getParentContentPackage());
+                } else {
+                    assertEquals(
+                            o.getParentContentPackage().getArtifact().getId(),
+                            l.getParentContentPackage().getArtifact().getId());
+                    assertNull(l.getArtifactFile());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testDifferentFeature() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator().bundles(2).generate(provider);
+            final StringWriter writer = new StringWriter();
+            final Scanner scanner = new Scanner(provider);
+            scanner.writeSnapshot(scanner.scan(feature), writer);
+
+            scanner.loadSnapshot(new Feature(ArtifactId.parse("g:other:1")), new StringReader(writer.toString()));
+        }
+    }
+
+    private static void assertRejected(
+            final TempDirArtifactProvider provider, final Feature feature, final String snapshot) throws Exception {
+        try {
+            new Scanner(provider).loadSnapshot(feature, new StringReader(snapshot));
+            fail("Snapshot loaded for a different feature");
+        } catch (final IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testChangedArtifacts() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator()
+                    .bundles(3)
+                    .contentPackages(1)
+                    .bundlesPerPackage(1)
+                    .generate(provider);
+            final StringWriter writer = new StringWriter();
+            final Scanner scanner = new Scanner(provider);
+            scanner.writeSnapshot(scanner.scan(feature), writer);
+            final String snapshot = writer.toString();
+
+            assertNotNull(new Scanner(provider).loadSnapshot(feature.copy(), new StringReader(snapshot)));
+
+            final Feature extraBundle = feature.copy();
+            extraBundle.getBundles().add(new Artifact(ArtifactId.parse("g:extra:1")));
+            assertRejected(provider, extraBundle, snapshot);
+
+            final Feature startOrder = feature.copy();
+            startOrder.getBundles().get(0).setStartOrder(99);
+            assertRejected(provider, startOrder, snapshot);
+
+            final Feature contentPackage = feature.copy();
+            contentPackage
+                    .getExtensions()
+                    .getByName(Extension.EXTENSION_NAME_CONTENT_PACKAGES)
+                    .getArtifacts()
+                    .get(0)
+                    .getMetadata()
+                    .put("changed", "true");
+            assertRejected(provider, contentPackage, snapshot);
+        }
+    }
+
+    @Test
+    public void testFramework() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            final Feature feature = new FeatureGenerator().bundles(2).generate(provider);
+            final ArtifactId frameworkId = ArtifactId.parse("org.apache.felix:org.apache.felix.framework:7.0.5");
+            final Extension ext = new Extension(
+                    ExtensionType.JSON, ExecutionEnvironmentExtension.EXTENSION_NAME, ExtensionState.OPTIONAL);
+            ext.setJSON("{\"framework\":{\"id\":\"" + frameworkId.toMvnId() + "\"}}");
+            feature.getExtensions().add(ext);
+
+            final FrameworkScanner frameworkScanner = (id, props, p) -> {
+                final SystemBundleDescriptor desc = new SystemBundleDescriptor(id, null);
+                desc.getExportedPackages().add(new PackageInfo("org.osgi.framework", "1.10.0", false));
+                desc.lock();
+                return desc;
+            };
+            final Scanner scanner = new Scanner(provider, null, Collections.singletonList(frameworkScanner));
+            final BundleDescriptor original = scanner.scan(frameworkId, feature.getFrameworkProperties());
+            final StringWriter writer = new StringWriter();
+            scanner.writeSnapshot(scanner.scan(feature), writer);
+
+            // no framework scanner, the framework descriptor is only available from the snapshot
+            final Scanner loading = new Scanner(provider, null, Collections.emptyList());
+            loading.loadSnapshot(feature, new StringReader(writer.toString()));
+            final BundleDescriptor loaded = loading.scan(frameworkId, feature.getFrameworkProperties());
+            assertTrue(loaded.isLocked());
+            assertEquals(Constants.SYSTEM_BUNDLE_SYMBOLICNAME, loaded.getBundleSymbolicName());
+            assertEquals(original.getExportedPackages(), loaded.getExportedPackages());
+
+            // the framework file is optional and resolved on access
+            assertNull(loaded.getArtifactFile());
+            Files.write(provider.newFile(frameworkId).toPath(), new byte[] {0});
+            assertNotNull(loaded.getArtifactFile());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnlockedDescriptor() throws Exception {
+        try (final TempDirArtifactProvider provider = new TempDirArtifactProvider()) {
+            new Scanner(provider)
+                    .writeSnapshot(
+                            new FeatureDescriptorImpl(new Feature(ArtifactId.parse("g:a:1"))), new StringWriter());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.feature.scanner.impl;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.sling.feature.ArtifactId;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class FlightRecorderEventsTest {
+
+    @Test
+    public void testNoRecording() {
+        final FlightRecorderEvents.Event event = FlightRecorderEvents.BUNDLE_SCAN.begin();
+        assertSame(FlightRecorderEvents.Event.NOOP, event);
+        assertFalse(event.isRecording());
+        // must not fail
+        event.setArtifactId(ArtifactId.parse("g:a:1"))
+                .setTaskId("task")
+                .setBytes(5)
+                .setCacheHit(true)
+                .commit();
+    }
+
+    @Test
+    public void testRecording() throws Exception {
+        final Class<?> recordingClass;
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        } catch (final ClassNotFoundException e) {
+            assumeTrue("Flight recorder events are not supported", false);
+            return;
+        }
+        final Class<?> recordingFileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+        final Class<?> recordedEventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        final Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+
+        final Path output = Files.createTempFile("analyser", ".jfr");
+        try {
+            final Object recording = recordingClass.getConstructor().newInstance();
+            recordingClass
+                    .getMethod("enable", String.class)
+                    .invoke(recording, "org.apache.sling.feature.analyser.TaskExecute");
+            recordingClass.getMethod("start").invoke(recording);
+
+            final FlightRecorderEvents.Event event = FlightRecorderEvents.TASK_EXECUTE.begin();
+            assertTrue(event.isRecording());
+            event.setTaskId("my-task").setArtifactId(ArtifactId.parse("g:a:1")).commit();
+
+            recordingClass.getMethod("stop").invoke(recording);
+            // the cached enabled state is reset once the recording is stopped
+            assertSame(FlightRecorderEvents.Event.NOOP, FlightRecorderEvents.TASK_EXECUTE.begin());
+            recordingClass.getMethod("dump", Path.class).invoke(recording, output);
+            recordingClass.getMethod("close").invoke(recording);
+
+            final List<?> events = (List<?>)
+                    recordingFileClass.getMethod("readAllEvents", Path.class).invoke(null, output);
+            assertEquals(1, events.size());
+            final Object recorded = events.get(0);
+            final Object type = recordedEventClass.getMethod("getEventType").invoke(recorded);
+            assertEquals(
+                    "org.apache.sling.feature.analyser.TaskExecute",
+                    eventTypeClass.getMethod("getName").invoke(type));
+            final java.lang.reflect.Method getValue = recordedEventClass.getMethod("getValue", String.class);
+            assertEquals("my-task", getValue.invoke(recorded, "taskId"));
+            assertEquals("g:a:1", getValue.invoke(recorded, "artifactId"));
+        } finally {
+            new File(output.toString()).delete();
+        }
+    }
+}